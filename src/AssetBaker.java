@@ -0,0 +1,104 @@
+import components.GameResources;
+import components.SpriteAtlas;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.ImageIO;
+
+/**
+ * Bakes the sprites into a SpriteAtlas, downscaled to the size the game draws them at (and
+ * twice that size). Run it again whenever a sprite changes, (with `CloudRush/src` as working
+ * directory) using `java -Djava.awt.headless=true -classpath ./:../resources/ AssetBaker
+ * [output file]`, which writes `../resources/sprites.atlas` by default.
+ */
+public class AssetBaker {
+    private static final int[] SCALES = {1, 2}; // Variants of every sprite
+
+    // Width (in pixels) GameEngine draws the sprites in a directory at, without any effects
+    private static final String[] DIRECTORIES = {
+        "bonus/", "coin/", "drop/main", "drop/", "lanterns/", "flowers/", "people/", "cloud/",
+        "lightning/",
+    };
+    private static final int[] WIDTHS = {
+        30, 30, 30, 60, 300, 120, 70, 200, 100,
+    };
+
+    public static void main(String[] args) throws IOException {
+        File output = new File(args.length > 0 ? args[0] : "../resources/" + SpriteAtlas.FILE);
+
+        List<String> names = new ArrayList<>();
+        List<Integer> scales = new ArrayList<>();
+        List<BufferedImage> sprites = new ArrayList<>();
+        for (String name : GameResources.getImageNames("eindhoven")) {
+            int width = getDrawWidth(name);
+            if (width == 0) {
+                continue; // The background, it differs per level
+            }
+
+            URL resource = AssetBaker.class.getClassLoader().getResource(name);
+            assert resource != null;
+            BufferedImage image = ImageIO.read(resource);
+            for (int scale : SCALES) {
+                int scaledWidth = width * scale;
+                int scaledHeight = Math.max(1, (int) Math.round(
+                    (double) image.getHeight() * scaledWidth / image.getWidth()));
+                names.add(name);
+                scales.add(scale);
+                sprites.add(scale(image, scaledWidth, scaledHeight));
+            }
+        }
+
+        SpriteAtlas.write(output, names, scales, sprites);
+        System.out.println("Baked " + sprites.size() + " sprites into " + output.getPath() + " ("
+            + output.length() / 1024 + " KB)");
+    }
+
+    /**
+     * Get the width a sprite is drawn at.
+     *
+     * @param name File path + name of the sprite
+     * @return The width in pixels, 0 when it isn't a sprite
+     */
+    private static int getDrawWidth(String name) {
+        for (int i = 0; i < DIRECTORIES.length; i++) {
+            if (name.startsWith(DIRECTORIES[i])) {
+                return WIDTHS[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Downscale an image, halving it in steps so every pixel of the original counts (a single
+     * bilinear step would skip most of them).
+     *
+     * @param image The image
+     * @param width The new width
+     * @param height The new height
+     * @return The image in premultiplied ARGB
+     */
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = image;
+        int currentWidth = image.getWidth();
+        int currentHeight = image.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+
+            BufferedImage step = new BufferedImage(currentWidth, currentHeight,
+                BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(scaled, 0, 0, currentWidth, currentHeight, null);
+            graphics.dispose();
+            scaled = step;
+        } while (currentWidth != width || currentHeight != height);
+        return scaled;
+    }
+}
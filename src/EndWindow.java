@@ -1,3 +1,4 @@
+import components.AssetCache;
 import components.GraphicsPanel;
 import components.Language;
 import components.Leaderboard;
@@ -5,21 +6,17 @@ import components.LeaderboardEntry;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.FontFormatException;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import java.util.function.Function;
 import javax.swing.AbstractAction;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
 import javax.swing.border.EmptyBorder;
 
 /**
@@ -30,9 +27,9 @@ public class EndWindow {
     // frame window created by MainWindow
     public GraphicsPanel backgroundPanel;
 
+    private final int points; // Amount of points
     private final String level; // The game level name
     private final Function<Void, Void> onSubmit; // Callback function
-    private final JLabel scoreLabel; // Used to get score
     private final JTextField nicknameInput; // Used to get nickname
 
     /**
@@ -43,23 +40,14 @@ public class EndWindow {
      */
     public EndWindow(int points, String level, Function<Void, Void> onSubmit) {
         this.onSubmit = onSubmit;
+        this.points = points;
         this.level = level;
 
-        // Import and load custom font from resources
-        InputStream is = this.getClass().getClassLoader()
-            .getResourceAsStream("joystix_monospace.otf");
-        Font font;
-        try {
-            assert is != null;
-            font = Font.createFont(Font.TRUETYPE_FONT, is);
-        } catch (FontFormatException | IOException e) {
-            throw new RuntimeException(e);
-        }
+        // Custom font, shared by all windows
+        Font font = AssetCache.getInstance().getFont();
 
         // Load background graphics
-        URL resource = getClass().getClassLoader().getResource("main_background.png");
-        assert resource != null;
-        Image img = new ImageIcon(resource).getImage();
+        Image img = AssetCache.getInstance().getImage("main_background.png");
 
         // Background
         backgroundPanel = new GraphicsPanel();
@@ -91,19 +79,32 @@ public class EndWindow {
             0, new Insets(10, 0, 0, 0), 0, 0)); // Spacing
 
         // Actual score
-        scoreLabel = new JLabel();
+        JLabel scoreLabel = new JLabel();
         scoreLabel.setFont(font.deriveFont(28f));
         scoreLabel.setForeground(new Color(-1));
         scoreLabel.setText(String.valueOf(points));
         backgroundPanel.add(scoreLabel, new GridBagConstraints(0, 3, 1, 1, 1.0, 0.0, 10, 0,
             new Insets(0, 0, 0, 0), 0, 0)); // Spacing
 
+        // Place on the leaderboard if the score is submitted, shown once the leaderboard is read
+        JLabel rankLabel = new JLabel();
+        rankLabel.setFont(font.deriveFont(14f));
+        rankLabel.setForeground(new Color(-1));
+        rankLabel.setText(" "); // Keep the space for it
+        backgroundPanel.add(rankLabel, new GridBagConstraints(0, 4, 1, 1, 1.0, 0.0, 10, 0,
+            new Insets(5, 0, 0, 0), 0, 0)); // Spacing
+        Leaderboard.getInstance().submit(leaderboard -> new int[] {
+            leaderboard.rankOf(level, points),
+            (int) Math.ceil(leaderboard.percentileOf(level, points))
+        }).thenAccept(place -> SwingUtilities.invokeLater(() ->
+            rankLabel.setText(String.format(Language.getString("placed"), place[0], place[1]))));
+
         // Nickname label
         JLabel nicknameLabel = new JLabel();
         nicknameLabel.setFont(font.deriveFont(14f));
         nicknameLabel.setForeground(new Color(-1));
         nicknameLabel.setText(Language.getString("nickname"));
-        backgroundPanel.add(nicknameLabel, new GridBagConstraints(0, 4, 1, 1, 1.0, 0.0, 10, 0,
+        backgroundPanel.add(nicknameLabel, new GridBagConstraints(0, 5, 1, 1, 1.0, 0.0, 10, 0,
             new Insets(10, 0, 0, 0), 0, 0)); // Spacing
 
         // Nickname input
@@ -111,7 +112,7 @@ public class EndWindow {
         nicknameInput.setFont(font.deriveFont(28f));
         nicknameInput.setText("");
         nicknameInput.setMinimumSize(new Dimension(200, 36));
-        backgroundPanel.add(nicknameInput, new GridBagConstraints(0, 5, 1, 1, 1.0, 0.0, 10,
+        backgroundPanel.add(nicknameInput, new GridBagConstraints(0, 6, 1, 1, 1.0, 0.0, 10,
             GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0)); // Spacing
 
         // Submit button
@@ -124,7 +125,7 @@ public class EndWindow {
                 submitScore();
             }
         });
-        backgroundPanel.add(submitButton, new GridBagConstraints(0, 6, 1, 1, 1.0, 0.0, 10,
+        backgroundPanel.add(submitButton, new GridBagConstraints(0, 7, 1, 1, 1.0, 0.0, 10,
             GridBagConstraints.HORIZONTAL, new Insets(20, 0, 0, 0), 0, 16)); // Spacing
 
     }
@@ -133,10 +134,15 @@ public class EndWindow {
         String nickname = nicknameInput.getText() // Get nickname with max 24 characters
             .substring(0, Math.min(nicknameInput.getText().length(), 24));
 
-        // Save to the leaderboard
-        Leaderboard leaderboard = new Leaderboard();
-        LeaderboardEntry entry = new LeaderboardEntry(level, scoreLabel.getText(), nickname);
-        leaderboard.addToLeaderboard(entry);
+        // Save to the leaderboard in the background, the main menu reads it after this
+        LeaderboardEntry entry = new LeaderboardEntry(level, points, nickname);
+        Leaderboard.getInstance().submit(leaderboard -> {
+            leaderboard.addToLeaderboard(entry);
+            return null;
+        }).exceptionally(error -> {
+            System.out.println("ERROR, COULDN'T SAVE THE SCORE: " + error.getCause().getMessage());
+            return null;
+        });
         onSubmit.apply(null);
     }
 }
@@ -1,50 +1,125 @@
+import components.AudioMixer;
+import components.FramePacing;
 import components.GameEngine;
+import components.GameResources;
 import components.GraphicsPanel;
+import components.GraphicsRenderer;
+import components.ReplayRecorder;
+import java.awt.Canvas;
+import java.awt.DisplayMode;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.RenderingHints;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferStrategy;
+import java.io.File;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Function;
+import java.util.prefs.Preferences;
 import javax.swing.AbstractAction;
+import javax.swing.Action;
+import javax.swing.ActionMap;
 import javax.swing.JPanel;
 import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.Timer;
 
 /**
  * The window where a game is played in.
+ *
+ * <p>By default the game is drawn with active rendering: a thread of its own draws every frame
+ * into the back buffer of a Canvas and flips it onto the screen, paced to the refresh rate of
+ * the screen. The Swing way (a Timer asking a panel to repaint itself) is kept as a fallback for
+ * systems where page flipping misbehaves, selectable in the settings or with
+ * `-Dcloudrush.rendering=swing`.
  */
 public class GameWindow {
+    private static final int BUFFERS = 3; // Buffers of the BufferStrategy (Java uses 2 if needed)
+
     public JPanel mainPanel; // Public to attach it to gameWindow instance in MainWindow.java
-    private GraphicsPanel canvas; // Game's main drawing canvas
+    private GraphicsPanel canvas; // Game's main drawing canvas (Swing rendering)
     private GameEngine game; // Game instance
+    private final GraphicsRenderer renderer = new GraphicsRenderer(); // Draws game on canvas
+    private final boolean activeRendering; // Whether drawn by a thread instead of Swing
+    private FramePacing pacing; // How evenly frames are shown
+    private Canvas activeCanvas; // Canvas with a BufferStrategy (active rendering)
+    private volatile boolean running = true; // Whether the render thread should keep drawing
+    private Timer timer; // Asks Swing to repaint (Swing rendering)
 
     /**
      * Initialize GameWindow.
-     * @param level The level to load
+     * @param resources The resources of the level to play (loaded with GameResources.load)
      */
-    public GameWindow(String level, Function<Integer, Void> onEnd) {
-        canvas = new GraphicsPanel();
-        canvas.paintHandler = this::onDraw;
-        canvas.repaint();
+    public GameWindow(GameResources resources, Function<Integer, Void> onEnd) {
+        activeRendering = isActiveRendering();
+        if (activeRendering) {
+            activeCanvas = new Canvas();
+            activeCanvas.setIgnoreRepaint(true); // Only the render thread draws it
+            activeCanvas.setFocusable(false); // Keep the focus (and key bindings) on mainPanel
+        } else {
+            canvas = new GraphicsPanel();
+            canvas.paintHandler = this::onDraw;
+            canvas.repaint();
+        }
 
-        // The panel where the game is played in/on.
-        mainPanel = new JPanel();
+        // The panel where the game is played in/on, stops drawing when the window is closed
+        mainPanel = new JPanel() {
+            @Override
+            public void removeNotify() {
+                stopGraphicsEngine();
+                super.removeNotify();
+            }
+        };
         mainPanel.setLayout(new GridBagLayout());
-        mainPanel.add(canvas, new GridBagConstraints(0, 0, 1, 1, 1.0, 1.0, 10,
-            GridBagConstraints.BOTH, new Insets(0, 0, 0, 0), 0, 0)); // Spacing
+        mainPanel.add(activeRendering ? activeCanvas : canvas, new GridBagConstraints(0, 0, 1, 1,
+            1.0, 1.0, 10, GridBagConstraints.BOTH, new Insets(0, 0, 0, 0), 0, 0)); // Spacing
 
-        // Get game instance with properties
-        game = new GameEngine(level);
+        // Get game instance with properties, the update rate and the seed of the random generator
+        // (a number, or "level" to play the same game every time) can be set for testing purposes
+        game = new GameEngine(resources,
+            Integer.getInteger("cloudrush.tickRate", GameEngine.DEFAULT_TICK_RATE),
+            GameEngine.parseSeed(System.getProperty("cloudrush.seed"), resources.level));
         game.onEnd = onEnd;
 
+        // Record the game to replay it later, if a file to save it to is given
+        String recordPath = System.getProperty("cloudrush.record");
+        if (recordPath != null) {
+            game.recorder = new ReplayRecorder(game);
+            game.onEnd = score -> {
+                game.recorder.save(new File(recordPath));
+                return onEnd.apply(score);
+            };
+        }
+
+        AudioMixer.getInstance(); // Load the sounds before the game starts
         declareControls(); // Create key bindings
         startGraphicsEngine(); // Start animation timer
     }
 
+    /**
+     * Check whether games are drawn with active rendering (the default) or by Swing.
+     */
+    public static boolean isActiveRendering() {
+        Preferences preferences = Preferences.userRoot().node("/"); // Java preferences
+        return !System.getProperty("cloudrush.rendering", preferences.get("rendering", "active"))
+            .equals("swing");
+    }
+
+    /**
+     * Change how games are drawn, from the next game on.
+     * @param active Whether to use active rendering (otherwise Swing)
+     */
+    public static void setActiveRendering(boolean active) {
+        Preferences preferences = Preferences.userRoot().node("/"); // Java preferences
+        preferences.put("rendering", active ? "active" : "swing");
+    }
+
     /**
      * Method used to create and assign keyboard strokes handlers.
      */
@@ -61,12 +136,14 @@ public class GameWindow {
         KeyStroke downPressed = KeyStroke.getKeyStroke(KeyEvent.VK_S, 0, false);
         KeyStroke spacePressed = KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0, false);
         KeyStroke enterPressed = KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, 0, false);
+        KeyStroke f3Pressed = KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0, false);
         mainPanel.getInputMap().put(leftPressed, "left_pressed");
         mainPanel.getInputMap().put(rightPressed, "right_pressed");
         mainPanel.getInputMap().put(upPressed, "up_pressed");
         mainPanel.getInputMap().put(downPressed, "down_pressed");
         mainPanel.getInputMap().put(spacePressed, "space_pressed");
         mainPanel.getInputMap().put(enterPressed, "enter_pressed");
+        mainPanel.getInputMap().put(f3Pressed, "f3_pressed");
 
         KeyStroke leftReleased = KeyStroke.getKeyStroke(KeyEvent.VK_A, 0, true);
         KeyStroke rightReleased = KeyStroke.getKeyStroke(KeyEvent.VK_D, 0, true);
@@ -116,6 +193,12 @@ public class GameWindow {
             }
         });
 
+        mainPanel.getActionMap().put("f3_pressed", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) {
+                game.profiler.toggle(); // Show or hide the debug overlay
+            }
+        });
+
         // Same but on key release
         mainPanel.getActionMap().put("enter_released", new AbstractAction() {
             public void actionPerformed(ActionEvent e) {
@@ -147,33 +230,169 @@ public class GameWindow {
                 game.raining = false;
             }
         });
+
+        // The render thread may be in the middle of a frame, so wait for it to finish
+        ActionMap actions = mainPanel.getActionMap();
+        for (Object key : actions.keys()) {
+            Action action = actions.get(key);
+            actions.put(key, new AbstractAction() {
+                public void actionPerformed(ActionEvent e) {
+                    synchronized (game) {
+                        action.actionPerformed(e);
+                    }
+                }
+            });
+        }
     }
 
     /**
-     * Start game timer.
+     * Start drawing the game, with a render thread or a Swing timer.
      */
     private void startGraphicsEngine() {
+        pacing = new FramePacing(getRefreshRate());
+        if (activeRendering) {
+            // The game ends on the render thread, but the windows change on the Swing thread
+            Function<Integer, Void> onEnd = game.onEnd;
+            game.onEnd = points -> {
+                SwingUtilities.invokeLater(() -> onEnd.apply(points));
+                return null;
+            };
+
+            Thread thread = new Thread(this::renderLoop, "Render");
+            thread.setDaemon(true); // Don't keep the game running
+            thread.start();
+            return;
+        }
+
         // Using javax.swing.Timer to increase precision
-        Timer timer = new Timer(0, e -> {
+        timer = new Timer(0, e -> {
             // Triggers game.tick() in onDraw()
             canvas.repaint();
         });
         timer.setRepeats(true); // Repeat timer callback infinite times
-        timer.setDelay(17); // ~60 FPS
+        timer.setDelay(1000 / getRefreshRate()); // Repaint as often as the screen refreshes
         timer.start();
     }
 
+    /**
+     * Stop drawing the game, because the window is closed. It can't wait for the render thread:
+     * the window holds the AWT tree lock while closing, which drawing may need.
+     */
+    private void stopGraphicsEngine() {
+        running = false;
+        if (timer != null) {
+            timer.stop();
+            printPacing();
+        }
+    }
+
+    /**
+     * Print how evenly the frames were shown.
+     */
+    private void printPacing() {
+        System.out.println("Frame pacing (" + (activeRendering ? "active" : "swing")
+            + " rendering): " + pacing.getSummary());
+    }
+
+    /**
+     * Draw frames into the BufferStrategy of the canvas until the game is over or the window is
+     * closed, runs on the render thread. Frames are started a refresh period apart, without
+     * catching up on frames which were too late.
+     */
+    private void renderLoop() {
+        // The canvas has to be on the screen to get buffers
+        while (running && !activeCanvas.isDisplayable()) {
+            LockSupport.parkNanos(10_000_000L);
+        }
+        if (!running) {
+            return;
+        }
+        activeCanvas.createBufferStrategy(BUFFERS);
+        BufferStrategy strategy = activeCanvas.getBufferStrategy();
+
+        long period = 1_000_000_000L / getRefreshRate();
+        long next = System.nanoTime();
+        try {
+            while (running && !game.isEnded() && showFrame(strategy)) {
+                Toolkit.getDefaultToolkit().sync(); // Show it now, some systems queue drawing
+                pacing.frame();
+
+                next += period;
+                long now = System.nanoTime();
+                if (now - next > period) {
+                    next = now; // Too late to catch up, start counting again
+                }
+                LockSupport.parkNanos(next - now);
+            }
+        } catch (IllegalStateException e) {
+            // The window was closed in the middle of a frame, which destroys the buffers
+            if (running) {
+                throw e;
+            }
+        }
+        printPacing();
+    }
+
+    /**
+     * Draw a frame into the back buffer and show it, drawing it again while the buffers lost
+     * their contents (e.g. when the screen mode changed).
+     * @param strategy The BufferStrategy of the canvas
+     * @return Whether the frame was shown, false when the canvas is gone
+     */
+    private boolean showFrame(BufferStrategy strategy) {
+        do {
+            do {
+                Graphics2D graphics = (Graphics2D) strategy.getDrawGraphics();
+                if (graphics == null) {
+                    return false;
+                }
+                graphics.setClip(0, 0, activeCanvas.getWidth(), activeCanvas.getHeight());
+                synchronized (game) { // Not while a key changes the game
+                    drawFrame(graphics);
+                }
+                graphics.dispose();
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        return true;
+    }
+
+    /**
+     * Get the refresh rate of the screen, the game itself is updated at a fixed rate
+     * independent of this, but drawing more often makes the movement smoother.
+     * @return The refresh rate in Hz (60 if unknown)
+     */
+    private int getRefreshRate() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return 60;
+        }
+
+        DisplayMode mode = GraphicsEnvironment.getLocalGraphicsEnvironment()
+            .getDefaultScreenDevice().getDisplayMode();
+        int refreshRate = mode.getRefreshRate();
+        return refreshRate == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : refreshRate;
+    }
+
     /**
      * Redraw callback of main canvas, used to draw all game object.
      * @param g Graphics of GraphicsPanel GUI component
      */
     private void onDraw(Graphics g) {
+        drawFrame((Graphics2D) g);
+        pacing.frame();
+    }
+
+    /**
+     * Draw a frame of the game.
+     * @param graphics Where to draw on, clipped to the size of the frame
+     */
+    private void drawFrame(Graphics2D graphics) {
         // Set most optimal interpolation (for faster rendering)
-        ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
             RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
 
         // Pass graphics to game engine and trigger game repaint
-        game.canvas = g;
-        game.tick();
+        renderer.setGraphics(graphics);
+        game.tick(renderer);
     }
 }
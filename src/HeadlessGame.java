@@ -0,0 +1,84 @@
+import components.GameEngine;
+import components.ReplayPlayer;
+import components.ReplayRecorder;
+import java.io.File;
+
+/**
+ * Plays a game without a display, as fast as possible, for automated playthroughs and
+ * benchmarks on machines without a screen. Run it (with `CloudRush/src` as working directory)
+ * using `java -Djava.awt.headless=true -classpath ./:../resources/ HeadlessGame [level] [seed]
+ * [replay file]`, where the seed is a number or "level" (the fixed seed of the level); the same
+ * seed gives the same result every time. When a replay file is given, the game is recorded to
+ * it. Use `HeadlessGame --replay [replay file]` to play a recorded game again.
+ */
+public class HeadlessGame {
+    private static final int FRAME_WIDTH = 950; // Same size as the game window
+    private static final int FRAME_HEIGHT = 650;
+
+    public static void main(String[] args) {
+        if (args.length > 1 && args[0].equals("--replay")) {
+            replay(new File(args[1]));
+            return;
+        }
+
+        String level = args.length > 0 ? args[0] : "eindhoven";
+        long seed = GameEngine.parseSeed(args.length > 1 ? args[1] : null, level);
+
+        GameEngine game = new GameEngine(level, GameEngine.DEFAULT_TICK_RATE, seed);
+        game.muted = true;
+        game.setFrameSize(FRAME_WIDTH, FRAME_HEIGHT);
+        if (args.length > 2) {
+            game.recorder = new ReplayRecorder(game);
+        }
+
+        long start = System.nanoTime();
+        long ticks = 0;
+        while (!game.isEnded()) {
+            // Simple autopilot: keep raining, sweep from left to right and strike lightning
+            game.raining = true;
+            game.goingLeft = ticks / 300 % 2 == 1;
+            game.goingRight = ticks / 300 % 2 == 0;
+            if (ticks % 120 == 0) {
+                game.makeLightning();
+            }
+
+            game.step();
+            ticks++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Level: " + level);
+        System.out.println("Seed: " + seed);
+        System.out.println("Points: " + game.getPoints());
+        System.out.printf("Ticks: %d in %.2fs (%.0f ticks/s)%n", ticks, seconds, ticks / seconds);
+
+        if (game.recorder != null) {
+            File file = new File(args[2]);
+            game.recorder.save(file);
+            System.out.println("Recorded to " + file + " (" + file.length() + " bytes)");
+        }
+    }
+
+    /**
+     * Play a recorded game again and check it ends with the same score.
+     * @param file The replay file
+     */
+    private static void replay(File file) {
+        ReplayPlayer replay = new ReplayPlayer(file);
+        GameEngine game = replay.createGame();
+
+        long start = System.nanoTime();
+        int points = replay.play(game);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println("Level: " + replay.level);
+        System.out.println("Seed: " + replay.seed);
+        System.out.println("Points: " + points + " (recorded: " + replay.points + ")");
+        System.out.printf("Replayed in %.2fs (%.0fx real-time)%n", seconds,
+            game.getTickCount() / (double) replay.tickRate / seconds);
+        if (points != replay.points) {
+            System.out.println("ERROR, REPLAY DIFFERS FROM THE RECORDED GAME!");
+            System.exit(1);
+        }
+    }
+}
@@ -1,20 +1,16 @@
+import components.AssetCache;
 import components.GraphicsPanel;
 import components.Language;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.FontFormatException;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Image;
 import java.awt.Insets;
 import java.awt.Window;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import javax.swing.AbstractAction;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JLabel;
 import javax.swing.JScrollPane;
@@ -34,21 +30,11 @@ public class InstructionsWindow {
      * @param window The game Window
      */
     public InstructionsWindow(Window window) {
-        // Import and load custom font from resources
-        InputStream is = this.getClass().getClassLoader()
-            .getResourceAsStream("joystix_monospace.otf");
-        Font font;
-        try {
-            assert is != null;
-            font = Font.createFont(Font.TRUETYPE_FONT, is);
-        } catch (FontFormatException | IOException e) {
-            throw new RuntimeException(e);
-        }
+        // Custom font, shared by all windows
+        Font font = AssetCache.getInstance().getFont();
 
         // Load background graphics
-        URL resource = getClass().getClassLoader().getResource("instructions_background.jpg");
-        assert resource != null;
-        Image back = new ImageIcon(resource).getImage();
+        Image back = AssetCache.getInstance().getImage("instructions_background.jpg");
 
         // Background
         backgroundPanel = new GraphicsPanel();
@@ -1,7 +1,9 @@
+import components.AssetCache;
+import components.AudioMixer;
+import components.GameResources;
 import components.GraphicsPanel;
 import components.Language;
 import components.Leaderboard;
-import components.LeaderboardEntry;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
@@ -14,16 +16,14 @@ import java.awt.Insets;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import java.util.ArrayList;
 import java.util.function.UnaryOperator;
 import java.util.prefs.Preferences;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
 
 /**
  * The main (starting) window. Here you select your level and/or settings etc..
@@ -56,6 +56,7 @@ public class MainWindow {
         window.setVisible(true); // Actual render window on screen
         window.setMinimumSize(new Dimension(860, 500)); // Perfect size not to wrap any text
         window.setResizable(false); // Not allowed to re-size window, this could mess up sprites
+        AudioMixer.getInstance().playMusic("menu");
 
         // Show instructions window on first run
         Preferences preferences = Preferences.userRoot().node("/"); // Java preferences
@@ -72,20 +73,11 @@ public class MainWindow {
         // Load language from Preferences API
         Language.loadLanguage();
 
-        // Import and load custom font from resources
-        InputStream is = this.getClass().getClassLoader()
-            .getResourceAsStream("joystix_monospace.otf");
-        try {
-            assert is != null;
-            font = Font.createFont(Font.TRUETYPE_FONT, is);
-        } catch (FontFormatException | IOException e) {
-            throw new RuntimeException(e);
-        }
+        // Custom font, shared by all windows
+        font = AssetCache.getInstance().getFont();
 
         // Load background graphics
-        URL resource = getClass().getClassLoader().getResource("main_background.png");
-        assert resource != null;
-        Image back = new ImageIcon(resource).getImage();
+        Image back = AssetCache.getInstance().getImage("main_background.png");
 
         // Override creation on mainPanel to display background graphics
         mainPanel = new GraphicsPanel();
@@ -242,8 +234,8 @@ public class MainWindow {
     }
 
     /**
-     * Load leaderboard from file and display all players
-     * with their scores in descending order to show ranking.
+     * Display the best 3 players of every level with their scores. The rows are shown right
+     * away with placeholders, and filled in once the leaderboard is read in the background.
      */
     private void loadLeaderBoard() {
         // Remove previous leaderboard (first 6 components are part
@@ -255,9 +247,9 @@ public class MainWindow {
 
         // Create new leaderboard
         String[] levels = new String[]{"eindhoven", "warsaw", "newyork"};
-        Leaderboard leaderboard = new Leaderboard();
         for (int i = 0; i < levels.length; i++) {
-            ArrayList<LeaderboardEntry> entries = leaderboard.getLeaderboard(levels[i]);
+            JLabel[] scoreLabels = new JLabel[3];
+            JLabel[] nicknameLabels = new JLabel[3];
 
             JPanel leaderboardPanel = new JPanel();
             leaderboardPanel.setOpaque(false);
@@ -265,8 +257,6 @@ public class MainWindow {
             leaderboardPanel.setMaximumSize(new Dimension(30, 100));
 
             for (int j = 0; j < 3; j++) {
-                boolean isNotNull = entries.size() > j; // Whether entry does exists
-
                 // Position
                 JLabel positionLabel = new JLabel();
                 positionLabel.setFont(font.deriveFont(32f));
@@ -282,32 +272,83 @@ public class MainWindow {
                     GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0));
 
                 // Score
-                JLabel scoreLabel = new JLabel();
-                scoreLabel.setFont(font.deriveFont(16f));
-                scoreLabel.setText(isNotNull ? String.valueOf(entries.get(j).getScore()) : "-");
-                details.add(scoreLabel, new GridBagConstraints(0, 0, 1, 1, 1.0, 0.0, 10,
+                scoreLabels[j] = new JLabel();
+                scoreLabels[j].setFont(font.deriveFont(16f));
+                scoreLabels[j].setText("...");
+                details.add(scoreLabels[j], new GridBagConstraints(0, 0, 1, 1, 1.0, 0.0, 10,
                     GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0));
 
                 // Nickname
-                JLabel nicknameLabel = new JLabel();
-                nicknameLabel.setFont(font.deriveFont(12f));
-                nicknameLabel.setText(isNotNull ? entries.get(j).getNickname() : "-");
-                details.add(nicknameLabel, new GridBagConstraints(0, 1, 1, 1, 1.0, 0.0, 10,
+                nicknameLabels[j] = new JLabel();
+                nicknameLabels[j].setFont(font.deriveFont(12f));
+                nicknameLabels[j].setText("...");
+                details.add(nicknameLabels[j], new GridBagConstraints(0, 1, 1, 1, 1.0, 0.0, 10,
                     GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0));
             }
 
             buttonsPanel.add(leaderboardPanel, new GridBagConstraints(i, 1, 1, 1, 1.0, 0.0, 10,
                 GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0));
+
+            // Submitted after a new score (if any), so that score is in it
+            String level = levels[i];
+            Leaderboard.getInstance().submit(leaderboard -> leaderboard.getTop(level, 3))
+                .whenComplete((entries, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        System.out.println("ERROR, COULDN'T READ THE LEADERBOARD: "
+                            + error.getCause().getMessage());
+                    }
+                    for (int j = 0; j < 3; j++) {
+                        boolean isNotNull = entries != null && entries.size() > j;
+                        scoreLabels[j].setText(isNotNull
+                            ? String.valueOf(entries.get(j).getScore()) : "-");
+                        nicknameLabels[j].setText(isNotNull ? entries.get(j).getNickname() : "-");
+                    }
+                }));
         }
     }
 
     /**
-     * Configure and run a GameWindow.
+     * Load the resources of a level in the background while showing a loading bar, and start
+     * the game once everything is loaded.
+     * @param level The level
      */
     private void startGame(String level) {
+        JFrame loadingWindow = new JFrame("CloudRush - " + Language.getString("loading"));
+        JProgressBar progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true); // Show the percentage
+        progressBar.setPreferredSize(new Dimension(360, 40));
+        loadingWindow.setContentPane(progressBar);
+        loadingWindow.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE); // Can't cancel loading
+        loadingWindow.pack();
+        loadingWindow.setLocationRelativeTo(null); // Show window in the center of the screen
+        loadingWindow.setVisible(true);
+        loadingWindow.setResizable(false);
+        window.setVisible(false);
+
+        GameResources.load(level, progress -> SwingUtilities.invokeLater(() -> {
+            // Images finish in any order, so updates can arrive out of order too
+            progressBar.setValue(Math.max(progressBar.getValue(), (int) (progress * 100)));
+        })).whenComplete((resources, error) -> SwingUtilities.invokeLater(() -> {
+            loadingWindow.dispose();
+            if (error != null) {
+                System.out.println("ERROR, COULDN'T LOAD " + level.toUpperCase() + ": "
+                    + error.getCause().getMessage());
+                window.setVisible(true);
+                return;
+            }
+            showGameWindow(resources);
+        }));
+    }
+
+    /**
+     * Configure and run a GameWindow.
+     * @param resources The loaded resources of the level
+     */
+    private void showGameWindow(GameResources resources) {
+        String level = resources.level;
         ReopenMainWindow windowCloseListener = new ReopenMainWindow();
 
-        GameWindow gameInstance = new GameWindow(level, points -> {
+        GameWindow gameInstance = new GameWindow(resources, points -> {
             gameWindow.removeWindowListener(windowCloseListener);
             endGame(points, level);
             return null;
@@ -319,9 +360,15 @@ public class MainWindow {
         gameWindow.setMinimumSize(new Dimension(950, 650));
         gameWindow.setLocationRelativeTo(null); // Show window in the center of the screen
         gameWindow.addWindowListener(windowCloseListener); // Reopen main window when game ends
+        gameWindow.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                resources.release(); // The background may be freed, the sprites stay loaded
+            }
+        });
         gameWindow.setVisible(true);
         gameWindow.setResizable(false);
-        window.setVisible(false);
+        AudioMixer.getInstance().playMusic(level); // Crossfades from the menu music
     }
 
     /**
@@ -332,6 +379,7 @@ public class MainWindow {
     private void endGame(int points, String level) {
         // Close GameWindow
         gameWindow.dispose();
+        AudioMixer.getInstance().playMusic("menu");
 
         // Create EndWindow to get player's nickname and save score
         JFrame endWindow = new JFrame("CloudRush - " + Language.getString("gameOver"));
@@ -360,6 +408,7 @@ public class MainWindow {
             window.revalidate();
             window.repaint();
             window.setVisible(true);
+            AudioMixer.getInstance().playMusic("menu"); // When the game was closed early
         }
     }
 }
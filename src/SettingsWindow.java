@@ -1,20 +1,16 @@
+import components.AssetCache;
 import components.GraphicsPanel;
 import components.Language;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Font;
-import java.awt.FontFormatException;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Image;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
 import java.util.function.UnaryOperator;
 import javax.swing.AbstractAction;
-import javax.swing.ImageIcon;
 import javax.swing.JButton;
 import javax.swing.JComboBox;
 import javax.swing.JLabel;
@@ -34,21 +30,11 @@ public class SettingsWindow {
      * @param onSubmit callback
      */
     public SettingsWindow(UnaryOperator<Integer> onSubmit) {
-        // Import and load custom font from resources
-        InputStream is = this.getClass().getClassLoader()
-            .getResourceAsStream("joystix_monospace.otf");
-        Font font;
-        try {
-            assert is != null;
-            font = Font.createFont(Font.TRUETYPE_FONT, is);
-        } catch (FontFormatException | IOException e) {
-            throw new RuntimeException(e);
-        }
+        // Custom font, shared by all windows
+        Font font = AssetCache.getInstance().getFont();
 
         // Load background graphics
-        URL resource = getClass().getClassLoader().getResource("main_background.png");
-        assert resource != null;
-        Image i = new ImageIcon(resource).getImage();
+        Image i = AssetCache.getInstance().getImage("main_background.png");
 
         // Background
         backgroundPanel = new GraphicsPanel();
@@ -96,6 +82,23 @@ public class SettingsWindow {
         backgroundPanel.add(languageSelect, new GridBagConstraints(0, 5, 1, 1, 1.0, 0.0, 10,
             GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0)); // Spacing
 
+        // Rendering label
+        JLabel renderingLabel = new JLabel();
+        renderingLabel.setFont(font.deriveFont(14f));
+        renderingLabel.setForeground(new Color(-1));
+        renderingLabel.setText(Language.getString("rendering"));
+        backgroundPanel.add(renderingLabel, new GridBagConstraints(0, 6, 1, 1, 1.0, 0.0, 10, 0,
+            new Insets(10, 0, 0, 0), 0, 0)); // Spacing
+
+        // Rendering input, active rendering or Swing (see GameWindow)
+        JComboBox<String> renderingSelect = new JComboBox<>(new String[]{
+            Language.getString("renderingActive"), Language.getString("renderingSwing")});
+        renderingSelect.setFont(font.deriveFont(20f));
+        renderingSelect.setSelectedIndex(GameWindow.isActiveRendering() ? 0 : 1);
+        renderingSelect.setMinimumSize(new Dimension(100, 50));
+        backgroundPanel.add(renderingSelect, new GridBagConstraints(0, 7, 1, 1, 1.0, 0.0, 10,
+            GridBagConstraints.HORIZONTAL, new Insets(0, 0, 0, 0), 0, 0)); // Spacing
+
         // Submit button
         JButton submitButton = new JButton();
         submitButton.setFont(font.deriveFont(18f));
@@ -103,10 +106,11 @@ public class SettingsWindow {
         submitButton.addActionListener(new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
+                GameWindow.setActiveRendering(renderingSelect.getSelectedIndex() == 0);
                 onSubmit.apply(languageSelect.getSelectedIndex());
             }
         });
-        backgroundPanel.add(submitButton, new GridBagConstraints(0, 6, 1, 1, 1.0, 0.0, 10,
+        backgroundPanel.add(submitButton, new GridBagConstraints(0, 8, 1, 1, 1.0, 0.0, 10,
             GridBagConstraints.HORIZONTAL, new Insets(20, 0, 0, 0), 0, 16)); // Spacing
 
     }
@@ -0,0 +1,170 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * A small benchmark harness, since the project has no build tool to pull in JMH. Every
+ * benchmark is warmed up first (so the JIT compiler has done its work), then measured for a
+ * number of iterations. Besides the time per operation, the bytes allocated per operation are
+ * measured (like JMH's `-prof gc`), since allocations are what makes the game stutter.
+ */
+public class Benchmark {
+    /**
+     * Code to run, which may throw.
+     */
+    public interface Action {
+        void run() throws Throwable;
+    }
+
+    // Settings, can be changed using system properties
+    private static final int WARMUP = Integer.getInteger("bench.warmup", 5); // Warmup iterations
+    private static final int ITERATIONS = Integer.getInteger("bench.iterations", 10);
+    private static final boolean CSV = Boolean.getBoolean("bench.csv"); // Print results as CSV
+    private static String filter = ""; // Only run benchmarks whose name contains this
+
+    // Allocations per thread are only available in the HotSpot specific ThreadMXBean
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /**
+     * Results of benchmarks should be stored here, so the JIT compiler can't remove the code
+     * computing them.
+     */
+    public static volatile Object sink;
+
+    private static boolean printedHeader = false;
+
+    /**
+     * Only run the benchmarks whose name contains the filter.
+     *
+     * @param filter The filter (empty to run all benchmarks)
+     */
+    public static void setFilter(String filter) {
+        Benchmark.filter = filter;
+    }
+
+    /**
+     * Check whether a benchmark will run, to skip expensive preparations otherwise.
+     *
+     * @param name Name of the benchmark
+     */
+    public static boolean isSelected(String name) {
+        return name.contains(filter);
+    }
+
+    /**
+     * Run a benchmark and print its results.
+     *
+     * @param name Name of the benchmark
+     * @param params The parameters of this run (e.g. the amount of objects)
+     * @param operations How many operations a single iteration runs
+     * @param setup Run (not measured) before every iteration, e.g. to create a fresh game
+     * @param operation The operation to measure
+     */
+    public static void run(String name, String params, int operations, Action setup,
+            Action operation) {
+        run(name, params, operations, setup, null, operation);
+    }
+
+    /**
+     * Run a benchmark and print its results, preparing every operation. Only the operations are
+     * measured, each on its own, which adds the overhead of reading the clock to them.
+     *
+     * @param name Name of the benchmark
+     * @param params The parameters of this run (e.g. the amount of objects)
+     * @param operations How many operations a single iteration runs
+     * @param setup Run (not measured) before every iteration, e.g. to create a fresh game
+     * @param prepare Run (not measured) before every operation, e.g. to advance the game, or
+     *      null when the operations don't need it
+     * @param operation The operation to measure
+     */
+    public static void run(String name, String params, int operations, Action setup,
+            Action prepare, Action operation) {
+        if (!isSelected(name)) {
+            return;
+        }
+
+        try {
+            for (int i = 0; i < WARMUP; i++) {
+                setup.run();
+                for (int j = 0; j < operations; j++) {
+                    if (prepare != null) {
+                        prepare.run();
+                    }
+                    operation.run();
+                }
+            }
+
+            double[] times = new double[ITERATIONS]; // Nanoseconds per operation
+            double bytes = 0; // Bytes allocated per operation
+            long thread = Thread.currentThread().getId();
+            for (int i = 0; i < ITERATIONS; i++) {
+                setup.run();
+
+                long time = 0;
+                long allocated = 0;
+                if (prepare == null) {
+                    allocated -= THREADS.getThreadAllocatedBytes(thread);
+                    time -= System.nanoTime();
+                    for (int j = 0; j < operations; j++) {
+                        operation.run();
+                    }
+                    time += System.nanoTime();
+                    allocated += THREADS.getThreadAllocatedBytes(thread);
+                } else {
+                    for (int j = 0; j < operations; j++) {
+                        prepare.run();
+                        allocated -= THREADS.getThreadAllocatedBytes(thread);
+                        time -= System.nanoTime();
+                        operation.run();
+                        time += System.nanoTime();
+                        allocated += THREADS.getThreadAllocatedBytes(thread);
+                    }
+                }
+                times[i] = time / (double) operations;
+                bytes += allocated / (double) operations / ITERATIONS;
+            }
+
+            print(name, params, times, bytes);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Print the results of a benchmark.
+     *
+     * @param name Name of the benchmark
+     * @param params The parameters of this run
+     * @param times Nanoseconds per operation of every iteration
+     * @param bytes Bytes allocated per operation
+     */
+    private static void print(String name, String params, double[] times, double bytes) {
+        double mean = 0;
+        for (double time : times) {
+            mean += time / times.length;
+        }
+        double variance = 0;
+        for (double time : times) {
+            variance += (time - mean) * (time - mean) / Math.max(1, times.length - 1);
+        }
+        double error = Math.sqrt(variance);
+
+        if (CSV) {
+            if (!printedHeader) {
+                System.out.println("benchmark,params,ns_per_op,error,bytes_per_op");
+            }
+            System.out.printf(Locale.ROOT, "%s,%s,%.1f,%.1f,%.1f%n",
+                name, params, mean, error, bytes);
+        } else {
+            if (!printedHeader) {
+                System.out.printf("%-28s %-22s %14s %12s %12s%n",
+                    "Benchmark", "Params", "ns/op", "error", "B/op");
+            }
+            System.out.printf(Locale.ROOT, "%-28s %-22s %14.1f %12.1f %12.1f%n",
+                name, params, mean, error, bytes);
+        }
+        printedHeader = true;
+    }
+}
@@ -0,0 +1,16 @@
+package benchmarks;
+
+/**
+ * Runs the benchmarks. Run it (with `CloudRush/src` as working directory) using
+ * `java -Djava.awt.headless=true -classpath ./:../resources/ benchmarks.Benchmarks [filter]`,
+ * where only the benchmarks whose name contains the filter (e.g. "engine.") are run.
+ */
+public class Benchmarks {
+    public static void main(String[] args) {
+        Benchmark.setFilter(args.length > 0 ? args[0] : "");
+
+        EngineBenchmarks.run();
+        RenderBenchmarks.run();
+        LoadingBenchmarks.run();
+    }
+}
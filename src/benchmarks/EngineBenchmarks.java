@@ -0,0 +1,122 @@
+package benchmarks;
+
+import components.GameEngine;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import objects.Particle;
+
+/**
+ * Benchmarks of the game simulation: a whole update, and the hit detection on its own.
+ */
+public class EngineBenchmarks {
+    public static final int FRAME_WIDTH = 950; // Same size as the game window
+    public static final int FRAME_HEIGHT = 650;
+    public static final int[] DENSITIES = {1, 4, 16}; // How crowded the map is
+    private static final int PREPARE_TICKS = 600; // Updates to play before measuring
+    private static final long SEED = 42; // Same game every time
+
+    private static GameEngine game; // The game being measured
+    private static int tick; // Updates played by the autopilot
+    private static final Particle lightning = new Particle(); // Lightning to detect hits of
+
+    /**
+     * Run all engine benchmarks.
+     */
+    public static void run() {
+        MethodHandle detectRainHit = findMethod("detectRainHit", MethodType.methodType(void.class));
+        MethodHandle generateRain = findMethod("generateRain", MethodType.methodType(void.class));
+        MethodHandle updateRaindrops = findMethod("updateRaindrops",
+            MethodType.methodType(void.class));
+        MethodHandle updateParticles = findMethod("updateParticles",
+            MethodType.methodType(void.class));
+        MethodHandle detectLightningHit = findMethod("detectLightningHit",
+            MethodType.methodType(void.class, Particle.class));
+
+        for (int density : DENSITIES) {
+            String params = "density=" + density;
+
+            // A whole update, with the autopilot playing
+            Benchmark.run("engine.step", params, 1000, () -> game = createGame(density), () -> {
+                autopilot(game, tick++);
+                game.step();
+            });
+
+            // Hit detection of all raindrops against the people and flower pots. The rain keeps
+            // falling in between (not measured), otherwise only the first call would find hits
+            Benchmark.run("engine.detectRainHit", params, 1000,
+                () -> game = createGame(density), () -> {
+                    generateRain.invokeExact(game);
+                    updateRaindrops.invokeExact(game);
+                    updateParticles.invokeExact(game);
+                }, () -> {
+                    detectRainHit.invokeExact(game);
+                });
+
+            // Hit detection of lightning against the lanterns and people, all over the map
+            Benchmark.run("engine.detectLightningHit", params, 1000,
+                () -> game = createGame(density), () -> {
+                    lightning.x = (tick += 37) % FRAME_WIDTH;
+                    lightning.y = 100;
+                    lightning.height = FRAME_HEIGHT - lightning.y;
+                    detectLightningHit.invokeExact(game, lightning);
+                });
+        }
+    }
+
+    /**
+     * Create a game which has been played for a while, so all kinds of objects are on the map.
+     *
+     * @param density How crowded the map is, 1 is the normal game
+     * @return The game
+     */
+    public static GameEngine createGame(int density) {
+        GameEngine game = new GameEngine("newyork", GameEngine.DEFAULT_TICK_RATE, SEED);
+        game.muted = true;
+        game.setFrameSize(FRAME_WIDTH, FRAME_HEIGHT);
+
+        game.peopleGenerationFrequency *= density;
+        game.flowerGenerationFrequency /= density;
+        game.lanternGenerationFrequency /= density;
+        game.effectsGenerationFrequency *= density;
+        game.rainIntensity /= density;
+
+        for (tick = 0; tick < PREPARE_TICKS; tick++) {
+            autopilot(game, tick);
+            game.step();
+        }
+        return game;
+    }
+
+    /**
+     * Play the game like HeadlessGame does: keep raining, sweep from left to right and strike
+     * lightning.
+     *
+     * @param game The game
+     * @param tick Number of the update
+     */
+    public static void autopilot(GameEngine game, int tick) {
+        game.raining = true;
+        game.goingLeft = tick / 300 % 2 == 1;
+        game.goingRight = tick / 300 % 2 == 0;
+        if (tick % 120 == 0) {
+            game.makeLightning();
+        }
+    }
+
+    /**
+     * Find a private method of GameEngine, to measure it on its own.
+     *
+     * @param name Name of the method
+     * @param type Type of the method
+     * @return The method, taking the game as first parameter
+     */
+    public static MethodHandle findMethod(String name, MethodType type) {
+        try {
+            return MethodHandles.privateLookupIn(GameEngine.class, MethodHandles.lookup())
+                .findVirtual(GameEngine.class, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package benchmarks;
+
+import components.Leaderboard;
+import components.LeaderboardEntry;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stress test of the leaderboard files shared by several processes: every process adds entries
+ * from several threads at the same time, and compacts the files now and then. Afterwards all
+ * entries (and those of an old CSV leaderboard, migrated by whichever process is first) have to
+ * be there exactly once. Run it (with `CloudRush/src` as working directory) using
+ * `java -classpath ./ benchmarks.LeaderboardStress [processes] [threads] [entries]`, where
+ * entries is the amount every thread adds.
+ */
+public class LeaderboardStress {
+    private static final int CSV_ENTRIES = 100; // Entries in the old CSV leaderboard
+    private static final int COMPACT_EVERY = 25; // Entries the first thread adds per compaction
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--worker")) {
+            work(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                Integer.parseInt(args[3]));
+            return;
+        }
+
+        int processes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int entries = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+        // The leaderboard files are in the home directory
+        File home = Files.createTempDirectory("cloudrush-stress").toFile();
+        File directory = new File(home, ".config/CloudRush");
+        directory.mkdirs();
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(
+                new File(directory, "leaderboard.csv")))) {
+            for (int i = 0; i < CSV_ENTRIES; i++) {
+                writer.append(Leaderboard.LEVELS[i % Leaderboard.LEVELS.length]).append(',')
+                    .append(Integer.toString(i)).append(",old").append(Integer.toString(i))
+                    .append('\n');
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Process> workers = new ArrayList<>();
+        for (int i = 0; i < processes; i++) {
+            workers.add(new ProcessBuilder(ProcessHandle.current().info().command().orElse("java"),
+                "-Duser.home=" + home, "-classpath", System.getProperty("java.class.path"),
+                LeaderboardStress.class.getName(), "--worker", Integer.toString(i),
+                Integer.toString(threads), Integer.toString(entries)).inheritIO().start());
+        }
+        boolean failed = false;
+        for (Process worker : workers) {
+            failed |= worker.waitFor() != 0;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        int added = processes * threads * entries;
+        System.out.printf("%d entries added by %d processes with %d threads in %.2fs "
+            + "(%.0f entries/s)%n", added, processes, threads, seconds, added / seconds);
+
+        // Read everything from disk in a fresh leaderboard, before and after compacting
+        System.setProperty("user.home", home.getPath());
+        for (boolean compact : new boolean[] {false, true}) {
+            Leaderboard leaderboard = new Leaderboard();
+            if (compact) {
+                leaderboard.compact();
+            }
+            failed |= !verify(leaderboard, processes, threads, entries);
+            leaderboard.close();
+        }
+
+        System.out.println(failed ? "FAILED" : "OK");
+        System.exit(failed ? 1 : 0);
+    }
+
+    /**
+     * Add entries from threads, as a worker process.
+     *
+     * @param process Number of this process
+     * @param threads Amount of threads
+     * @param entries Amount of entries every thread adds
+     * @throws InterruptedException When interrupted while waiting for the threads
+     */
+    private static void work(int process, int threads, int entries)
+            throws InterruptedException {
+        Leaderboard leaderboard = Leaderboard.getInstance();
+        boolean[] failed = {false};
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int thread = i;
+            workers.add(new Thread(() -> {
+                try {
+                    for (int j = 0; j < entries; j++) {
+                        leaderboard.addToLeaderboard(createEntry(process, thread, j));
+                        if (thread == 0 && j % COMPACT_EVERY == COMPACT_EVERY - 1) {
+                            leaderboard.compact();
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    failed[0] = true;
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        leaderboard.close();
+        System.exit(failed[0] ? 1 : 0);
+    }
+
+    /**
+     * Check that a leaderboard has every entry exactly once.
+     *
+     * @param leaderboard The leaderboard
+     * @param processes Amount of processes
+     * @param threads Amount of threads per process
+     * @param entries Amount of entries per thread
+     * @return Whether it's right
+     */
+    private static boolean verify(Leaderboard leaderboard, int processes, int threads,
+            int entries) {
+        // Every nickname with its expected level and score
+        Map<String, LeaderboardEntry> expected = new HashMap<>();
+        for (int i = 0; i < CSV_ENTRIES; i++) {
+            expected.put("old" + i, new LeaderboardEntry(
+                Leaderboard.LEVELS[i % Leaderboard.LEVELS.length], i, "old" + i));
+        }
+        for (int process = 0; process < processes; process++) {
+            for (int thread = 0; thread < threads; thread++) {
+                for (int i = 0; i < entries; i++) {
+                    LeaderboardEntry entry = createEntry(process, thread, i);
+                    expected.put(entry.getNickname(), entry);
+                }
+            }
+        }
+
+        int found = 0;
+        int wrong = 0;
+        for (String level : Leaderboard.LEVELS) {
+            for (LeaderboardEntry entry : leaderboard.getLeaderboard(level)) {
+                LeaderboardEntry expectedEntry = expected.remove(entry.getNickname());
+                if (expectedEntry == null || !expectedEntry.getLevel().equals(level)
+                        || expectedEntry.getScore() != entry.getScore()) {
+                    System.out.println("Unexpected or duplicate entry: " + entry);
+                    wrong++;
+                } else {
+                    found++;
+                }
+            }
+        }
+        System.out.println(found + " entries found, " + expected.size() + " missing, " + wrong
+            + " wrong");
+        return expected.isEmpty() && wrong == 0;
+    }
+
+    /**
+     * Create the entry a thread adds.
+     *
+     * @param process Number of the process
+     * @param thread Number of the thread
+     * @param index Number of the entry of the thread
+     * @return The entry, with a nickname which is different for every entry
+     */
+    private static LeaderboardEntry createEntry(int process, int thread, int index) {
+        return new LeaderboardEntry(Leaderboard.LEVELS[index % Leaderboard.LEVELS.length],
+            process * 1000000 + thread * 10000 + index, "p" + process + "t" + thread + "e" + index);
+    }
+}
@@ -0,0 +1,127 @@
+package benchmarks;
+
+import components.GameResources;
+import components.Leaderboard;
+import components.LeaderboardEntry;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Benchmarks of loading things from disk: the resources of a level and the leaderboard.
+ */
+public class LoadingBenchmarks {
+    private static final String[] LEVELS = Leaderboard.LEVELS;
+
+    /**
+     * Run all loading benchmarks.
+     */
+    public static void run() {
+        // Images are decoded once and then come from the AssetCache, so this measures a cold
+        // load only in a fresh JVM with -Dbench.warmup=0 -Dbench.iterations=1
+        for (String level : new String[] {"eindhoven", "newyork"}) { // No background of warsaw
+            Benchmark.run("resources.load", "level=" + level, 1, () -> { }, () -> {
+                GameResources resources = new GameResources(level);
+                resources.release();
+                Benchmark.sink = resources;
+            });
+            Benchmark.run("resources.loadParallel", "level=" + level, 1, () -> { }, () -> {
+                GameResources resources = GameResources.load(level, progress -> { }).join();
+                resources.release();
+                Benchmark.sink = resources;
+            });
+        }
+
+        // Amount of lines in the leaderboard file, -Dbench.leaderboard=1000,...,10000000
+        String sizes = System.getProperty("bench.leaderboard", "1000,100000,1000000");
+        for (String size : sizes.split(",")) {
+            int lines = Integer.parseInt(size.trim());
+            if (!Benchmark.isSelected("leaderboard.")) {
+                break;
+            }
+
+            // The first read migrates the CSV file into a snapshot, which is what's measured
+            File file = createLeaderboardFile(lines);
+            Leaderboard[] leaderboard = {openLeaderboard(file)};
+            leaderboard[0].getTop(LEVELS[0], 3);
+
+            // What the menu does: the best 3 of every level, reading the files the first time
+            Benchmark.run("leaderboard.load", "lines=" + lines, 1, () -> {
+                leaderboard[0].close();
+                leaderboard[0] = openLeaderboard(file);
+            }, () -> {
+                for (String level : LEVELS) {
+                    Benchmark.sink = leaderboard[0].getTop(level, 3);
+                }
+            });
+            Benchmark.run("leaderboard.top", "lines=" + lines, 1000, () -> { }, () -> {
+                for (String level : LEVELS) {
+                    Benchmark.sink = leaderboard[0].getTop(level, 3);
+                }
+            });
+
+            // What the end window and scrolling through the leaderboard do
+            Benchmark.run("leaderboard.rank", "lines=" + lines, 1000, () -> { }, () -> {
+                for (String level : LEVELS) {
+                    Benchmark.sink = leaderboard[0].rankOf(level, 5000);
+                    Benchmark.sink = leaderboard[0].percentileOf(level, 5000);
+                    Benchmark.sink = leaderboard[0].page(level, lines / 6, 20);
+                }
+            });
+
+            // Appending a record to the log, including waiting until it's on disk
+            Random random = new Random(lines);
+            Benchmark.run("leaderboard.add", "lines=" + lines, 10, () -> { }, () ->
+                leaderboard[0].addToLeaderboard(new LeaderboardEntry(
+                    LEVELS[random.nextInt(LEVELS.length)], random.nextInt(20000), "bench")));
+            leaderboard[0].close();
+        }
+    }
+
+    /**
+     * Create a leaderboard file in a temporary directory, filled with random entries.
+     *
+     * @param lines Amount of entries
+     * @return The file
+     */
+    private static File createLeaderboardFile(int lines) {
+        try {
+            File directory = Files.createTempDirectory("cloudrush-bench").toFile();
+            directory.deleteOnExit();
+            File file = new File(directory, ".config/CloudRush/leaderboard.csv");
+            file.getParentFile().mkdirs();
+            file.deleteOnExit();
+
+            Random random = new Random(lines);
+            try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+                for (int i = 0; i < lines; i++) {
+                    writer.append(LEVELS[random.nextInt(LEVELS.length)]).append(',')
+                        .append(Integer.toString(random.nextInt(20000) - 5000)).append(',')
+                        .append("player").append(Integer.toString(i)).append('\n');
+                }
+            }
+            return file;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Create a leaderboard in the directory of a file from createLeaderboardFile, which isn't
+     * read yet.
+     *
+     * @param file The file
+     * @return The leaderboard
+     */
+    private static Leaderboard openLeaderboard(File file) {
+        // Leaderboard stores its files in the home directory
+        String home = System.getProperty("user.home");
+        System.setProperty("user.home", file.getParentFile().getParentFile().getParent());
+        Leaderboard leaderboard = new Leaderboard();
+        System.setProperty("user.home", home);
+        return leaderboard;
+    }
+}
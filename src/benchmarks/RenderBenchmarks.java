@@ -0,0 +1,81 @@
+package benchmarks;
+
+import components.GameEngine;
+import components.GraphicsRenderer;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Benchmarks of drawing the game with Java2D into an offscreen image, per layer and as a whole.
+ */
+public class RenderBenchmarks {
+    // The layers of a frame, in the order GameEngine.render draws them
+    private static final String[] LAYERS = {
+        "drawBackground", "drawEffects", "drawLanterns", "drawFlowerpots", "drawPeople",
+        "drawRaindrops", "drawSplashes", "drawLightning", "drawCoins", "drawCloud", "drawScore",
+        "drawBuffs",
+    };
+    private static final int DENSITY = 4; // How crowded the map is
+
+    private static GameEngine game; // The game being drawn
+
+    /**
+     * Run all render benchmarks.
+     */
+    public static void run() {
+        BufferedImage image = new BufferedImage(EngineBenchmarks.FRAME_WIDTH,
+            EngineBenchmarks.FRAME_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setClip(0, 0, image.getWidth(), image.getHeight());
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+            RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR); // Same as GameWindow
+        GraphicsRenderer renderer = new GraphicsRenderer();
+        renderer.setGraphics(graphics);
+
+        String params = "density=" + DENSITY;
+        for (String layer : LAYERS) {
+            MethodHandle draw = findLayer(layer);
+            Benchmark.run("render." + layer, params, 100, () -> prepare(renderer),
+                () -> {
+                    draw.invokeExact(game, 0.5);
+                });
+        }
+        MethodHandle render = findLayer("render");
+        Benchmark.run("render.frame", params, 100, () -> prepare(renderer),
+            () -> {
+                render.invokeExact(game, 0.5);
+            });
+    }
+
+    /**
+     * Create a game to draw, and let it draw on the renderer.
+     *
+     * @param renderer The renderer
+     */
+    private static void prepare(GraphicsRenderer renderer) {
+        game = EngineBenchmarks.createGame(DENSITY);
+        game.tick(renderer); // The first tick doesn't update, it only sets up drawing
+    }
+
+    /**
+     * Find the method drawing a layer.
+     *
+     * @param name Name of the method
+     * @return The method, taking the game and how far it is between updates as parameters
+     */
+    private static MethodHandle findLayer(String name) {
+        try {
+            return EngineBenchmarks.findMethod(name,
+                MethodType.methodType(void.class, double.class));
+        } catch (RuntimeException e) {
+            // Layers which aren't interpolated don't take the parameter
+            MethodHandle draw = EngineBenchmarks.findMethod(name,
+                MethodType.methodType(void.class));
+            return MethodHandles.dropArguments(draw, 1, double.class);
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package components;
+
+import events.ImageLoadEvent;
+import java.awt.Font;
+import java.awt.FontFormatException;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.imageio.ImageIO;
+
+/**
+ * Images and the font of the game, shared by the whole program and keyed by resource path, so
+ * every file is decoded only once.
+ *
+ * <p>Sprites come from the SpriteAtlas when it's baked, at the size they're drawn at (twice
+ * that by default, `-Dcloudrush.spriteScale=1` for the exact size). Other images are decoded
+ * from their PNG.
+ *
+ * <p>Images from getImage (sprites used by every level, menu backgrounds) stay loaded forever.
+ * Images from acquireImage (level backgrounds) are counted: once nobody uses one anymore it's
+ * kept in case it's needed again, up to a memory budget (`-Dcloudrush.assetBudget=<MB>`, 128 MB
+ * by default). Beyond the budget the least recently released images are only softly
+ * referenced, so the garbage collector frees them when it needs the memory.
+ */
+public class AssetCache {
+    private static final long DEFAULT_BUDGET = 128; // MB of released images kept loaded
+    private static final int DEFAULT_SPRITE_SCALE = 2; // Stays sharp when effects grow sprites
+
+    private static AssetCache instance; // The cache, shared by all windows and games
+
+    private final long budget; // Bytes of released images kept loaded
+    private final Font font; // The font of the game (joystix)
+    private final SpriteAtlas atlas; // Downscaled sprites, null when not baked
+
+    // Every image which is loaded (or being loaded by some thread)
+    private final Map<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+
+    // Counted images, guarded by this
+    private final Map<String, Integer> references = new HashMap<>(); // Users per image
+    private final LinkedHashMap<String, BufferedImage> released = new LinkedHashMap<>(); // LRU
+    private long releasedBytes = 0; // Size of the released images
+    private final Map<String, SoftReference<BufferedImage>> evicted = new HashMap<>();
+    private final ReferenceQueue<BufferedImage> freed = new ReferenceQueue<>(); // Evicted and freed
+
+    /**
+     * Get the cache, creating it the first time.
+     */
+    public static synchronized AssetCache getInstance() {
+        if (instance == null) {
+            instance = new AssetCache(Long.getLong("cloudrush.assetBudget", DEFAULT_BUDGET),
+                Integer.getInteger("cloudrush.spriteScale", DEFAULT_SPRITE_SCALE));
+        }
+        return instance;
+    }
+
+    /**
+     * Initialize AssetCache.
+     *
+     * @param budget MB of images nobody uses which are kept loaded
+     * @param spriteScale Which variant of the sprites in the atlas to use (1 or 2)
+     */
+    private AssetCache(long budget, int spriteScale) {
+        this.budget = budget * 1024 * 1024;
+        atlas = SpriteAtlas.load(spriteScale);
+
+        InputStream is = getClass().getClassLoader().getResourceAsStream("joystix_monospace.otf");
+        try {
+            assert is != null;
+            font = Font.createFont(Font.TRUETYPE_FONT, is);
+        } catch (FontFormatException | IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Get the font of the game, at size 1 (use deriveFont to get the right size).
+     */
+    public Font getFont() {
+        return font;
+    }
+
+    /**
+     * Get an image which stays loaded, decoding it on this thread the first time. When several
+     * threads ask for the same image at once, one decodes it and the others wait for it.
+     *
+     * @param name Image file path + name
+     * @return The image
+     */
+    public BufferedImage getImage(String name) {
+        BufferedImage sprite = atlas == null ? null : atlas.get(name);
+        if (sprite != null) {
+            return sprite;
+        }
+
+        CompletableFuture<BufferedImage> loading = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> image = images.putIfAbsent(name, loading);
+        if (image != null) {
+            return image.join();
+        }
+
+        try {
+            loading.complete(decode(name));
+        } catch (RuntimeException e) {
+            images.remove(name, loading); // Try again next time
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        return loading.join();
+    }
+
+    /**
+     * Get an image and count it as used, until releaseImage is called.
+     *
+     * @param name Image file path + name
+     * @return The image
+     */
+    public BufferedImage acquireImage(String name) {
+        synchronized (this) {
+            forgetFreed();
+            references.merge(name, 1, Integer::sum);
+
+            // Use it again if it was released but not freed yet
+            BufferedImage image = released.remove(name);
+            if (image != null) {
+                releasedBytes -= getSize(image);
+            }
+            SoftReference<BufferedImage> reference = evicted.remove(name);
+            if (reference != null && reference.get() != null) {
+                images.put(name, CompletableFuture.completedFuture(reference.get()));
+            }
+        }
+
+        try {
+            return getImage(name);
+        } catch (RuntimeException e) {
+            releaseImage(name); // Nobody can use it
+            throw e;
+        }
+    }
+
+    /**
+     * Stop using an image from acquireImage. When nobody uses it anymore it may be freed.
+     *
+     * @param name Image file path + name
+     */
+    public synchronized void releaseImage(String name) {
+        int left = references.merge(name, -1, Integer::sum);
+        if (left > 0) {
+            return;
+        }
+        references.remove(name);
+
+        CompletableFuture<BufferedImage> image = images.get(name);
+        if (image != null && !image.isDone()) {
+            // Still being loaded (e.g. loading the level was cancelled), release it once it is
+            image.thenRun(() -> release(name));
+            return;
+        }
+        release(name);
+    }
+
+    /**
+     * Keep an image nobody uses anymore within the budget, freeing the least recently released
+     * images above it.
+     *
+     * @param name Image file path + name
+     */
+    private synchronized void release(String name) {
+        forgetFreed();
+        CompletableFuture<BufferedImage> image = images.get(name);
+        if (references.containsKey(name) || released.containsKey(name) || image == null
+                || !image.isDone() || image.isCompletedExceptionally()) {
+            return; // Used again meanwhile, released already, or not loaded
+        }
+        released.put(name, image.join());
+        releasedBytes += getSize(image.join());
+
+        // Free the least recently released images above the budget, unless the memory isn't
+        // needed for anything else
+        Iterator<Map.Entry<String, BufferedImage>> eldest = released.entrySet().iterator();
+        while (releasedBytes > budget && eldest.hasNext()) {
+            Map.Entry<String, BufferedImage> entry = eldest.next();
+            eldest.remove();
+            releasedBytes -= getSize(entry.getValue());
+            images.remove(entry.getKey());
+            evicted.put(entry.getKey(), new SoftReference<>(entry.getValue(), freed));
+        }
+    }
+
+    /**
+     * Forget the evicted images the garbage collector freed.
+     */
+    private void forgetFreed() {
+        Reference<? extends BufferedImage> reference;
+        while ((reference = freed.poll()) != null) {
+            evicted.values().remove(reference);
+        }
+    }
+
+    /**
+     * Get the amount of memory an image uses.
+     *
+     * @param image The image
+     * @return Size in bytes
+     */
+    private static long getSize(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    /**
+     * Load an image, decoding it completely.
+     *
+     * @param name Image file path + name
+     * @return The image
+     */
+    private static BufferedImage decode(String name) {
+        ImageLoadEvent event = ImageLoadEvent.TYPE.isEnabled() ? new ImageLoadEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        URL resource = AssetCache.class.getClassLoader().getResource(name);
+        if (resource == null) {
+            throw new IllegalArgumentException("Image not found: " + name);
+        }
+        BufferedImage decoded;
+        try {
+            decoded = ImageIO.read(resource);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // Store it premultiplied, the format Java2D draws transparent images the fastest in
+        BufferedImage image = new BufferedImage(decoded.getWidth(), decoded.getHeight(),
+            BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = image.createGraphics();
+        graphics.drawImage(decoded, 0, 0, null);
+        graphics.dispose();
+
+        if (event != null && event.shouldCommit()) {
+            event.name = name;
+            event.width = image.getWidth();
+            event.height = image.getHeight();
+            event.commit();
+        }
+        return image;
+    }
+}
@@ -0,0 +1,282 @@
+package components;
+
+import events.SoundEvent;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays the sound effects of the game. All sounds are decoded once into PCM samples (16 bit
+ * stereo at 44.1 kHz), and a single thread mixes the sounds which are playing (voices) into
+ * one audio line. Playing a sound only puts a command in a queue, so the game never waits for
+ * audio and no threads or lines are created while playing. The background music of the
+ * MusicPlayer is mixed in as well.
+ */
+public class AudioMixer {
+    public static final String[] SOUNDS = {
+        "coin", "effect-correct", "effect-wrong", "lightning", "mistake",
+    };
+    public static final int SAMPLE_RATE = 44100; // Samples per second of every sound
+    private static final int BLOCK = 128; // Frames mixed at once (2.9 ms)
+    private static final int LINE_BLOCKS = 3; // Blocks the audio line buffers, the latency
+    private static final int MAX_VOICES = 16; // Sounds which can play at the same time
+    private static final long THROTTLE = 100_000_000L; // Minimal time (ns) between same sounds
+    private static final int QUEUE_SIZE = 64; // Commands which can wait (power of 2)
+
+    private static AudioMixer instance; // The mixer, there's only one audio output
+
+    private final short[][] samples = new short[SOUNDS.length][]; // PCM (left, right, left, ..)
+    private final long[] lastPlayed = new long[SOUNDS.length]; // When a sound was last played
+    private final AudioSink sink; // Where the mixed sound goes to, null when there's no audio
+    private final MusicPlayer music; // Background music, null when there's no audio
+
+    // Commands from the game to the mixer thread, a queue with a single producer (the game)
+    // and a single consumer (the mixer thread) which doesn't need locks
+    private final int[] queuedSounds = new int[QUEUE_SIZE]; // Which sound to play
+    private final long[] queuedTimes = new long[QUEUE_SIZE]; // When it was asked to play
+    private final AtomicLong queueHead = new AtomicLong(); // Next command to take (consumer)
+    private final AtomicLong queueTail = new AtomicLong(); // Next free place (producer)
+
+    // The voices, only used by the mixer thread
+    private final int[] voiceSounds = new int[MAX_VOICES]; // Sound of the voice, -1 when free
+    private final int[] voicePositions = new int[MAX_VOICES]; // Next sample to mix
+
+    /**
+     * Get the mixer, loading the sounds and starting it the first time.
+     */
+    public static synchronized AudioMixer getInstance() {
+        if (instance == null) {
+            AudioSink sink;
+            try {
+                sink = new LineAudioSink(BLOCK * LINE_BLOCKS * 4);
+            } catch (LineUnavailableException e) {
+                System.out.println("WARNING, NO AUDIO OUTPUT FOUND, PLAYING WITHOUT SOUND!");
+                sink = null;
+            }
+            instance = new AudioMixer(sink);
+        }
+        return instance;
+    }
+
+    /**
+     * Initialize AudioMixer. Normally the mixer from getInstance is used, another one (e.g. with
+     * a NullAudioSink) is only useful to run the audio without sound.
+     *
+     * @param sink Where the mixed sound goes to, null to not play anything
+     */
+    public AudioMixer(AudioSink sink) {
+        for (int i = 0; i < SOUNDS.length; i++) {
+            samples[i] = loadSound("sounds/" + SOUNDS[i] + ".wav");
+        }
+        Arrays.fill(voiceSounds, -1);
+
+        this.sink = sink;
+        if (sink == null) {
+            music = null;
+            return;
+        }
+        music = new MusicPlayer();
+        SoundEvent.TYPE.isEnabled(); // Set up the event now, not in the middle of mixing
+
+        Thread thread = new Thread(this::mix, "Audio mixer");
+        thread.setDaemon(true); // Don't keep the game running
+        thread.setPriority(Thread.MAX_PRIORITY); // Gaps in audio are noticed right away
+        thread.start();
+    }
+
+    /**
+     * Play a sound. The same sound is played at most once per 100 milliseconds, to prevent
+     * sounds from being "overlapped" with a very small offset (which makes it sound weird).
+     * Should only be called by a single thread (the game).
+     *
+     * @param name The name of the sound
+     */
+    public void play(String name) {
+        if (sink == null) {
+            return;
+        }
+
+        int sound = 0;
+        while (sound < SOUNDS.length && !SOUNDS[sound].equals(name)) {
+            sound++;
+        }
+        if (sound == SOUNDS.length) {
+            throw new IllegalArgumentException("Unknown sound: " + name);
+        }
+
+        long now = System.nanoTime();
+        if (lastPlayed[sound] != 0 && now - lastPlayed[sound] < THROTTLE) {
+            return;
+        }
+        lastPlayed[sound] = now;
+
+        // Add the command to the queue, dropping it when the mixer is far behind
+        long tail = queueTail.get();
+        if (tail - queueHead.get() == QUEUE_SIZE) {
+            return;
+        }
+        queuedSounds[(int) tail & (QUEUE_SIZE - 1)] = sound;
+        queuedTimes[(int) tail & (QUEUE_SIZE - 1)] = now;
+        queueTail.lazySet(tail + 1); // Publishes the command to the mixer thread
+    }
+
+    /**
+     * Play background music, crossfading from the music which is playing.
+     *
+     * @param track Name of the track (e.g. "menu" or a level), null to stop the music
+     */
+    public void playMusic(String track) {
+        if (music != null) {
+            music.play(track);
+        }
+    }
+
+    /**
+     * Mix the voices and the music into the sink, runs on the mixer thread forever. Writing to
+     * the sink blocks until it has room for a block, which paces this loop.
+     */
+    private void mix() {
+        int[] mixed = new int[BLOCK * 2]; // Sum of all voices, per channel
+        byte[] bytes = new byte[BLOCK * 4]; // 16 bit little endian samples for the line
+
+        while (true) {
+            startQueuedVoices();
+
+            Arrays.fill(mixed, 0);
+            for (int voice = 0; voice < MAX_VOICES; voice++) {
+                int sound = voiceSounds[voice];
+                if (sound == -1) {
+                    continue;
+                }
+
+                short[] pcm = samples[sound];
+                int position = voicePositions[voice];
+                int length = Math.min(mixed.length, pcm.length - position);
+                for (int i = 0; i < length; i++) {
+                    mixed[i] += pcm[position + i];
+                }
+
+                voicePositions[voice] = position + length;
+                if (voicePositions[voice] >= pcm.length) {
+                    voiceSounds[voice] = -1; // Done playing
+                }
+            }
+            music.mixInto(mixed);
+
+            for (int i = 0; i < mixed.length; i++) {
+                int sample = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixed[i]));
+                bytes[i * 2] = (byte) sample;
+                bytes[i * 2 + 1] = (byte) (sample >> 8);
+            }
+            sink.write(bytes, bytes.length);
+        }
+    }
+
+    /**
+     * Start a voice for every sound in the queue.
+     */
+    private void startQueuedVoices() {
+        long head = queueHead.get();
+        long tail = queueTail.get();
+        for (; head < tail; head++) {
+            int sound = queuedSounds[(int) head & (QUEUE_SIZE - 1)];
+            long time = queuedTimes[(int) head & (QUEUE_SIZE - 1)];
+
+            // Use a free voice, or replace the one which has played the longest
+            int voice = 0;
+            for (int i = 0; i < MAX_VOICES; i++) {
+                if (voiceSounds[i] == -1) {
+                    voice = i;
+                    break;
+                }
+                if (voicePositions[i] > voicePositions[voice]) {
+                    voice = i;
+                }
+            }
+            boolean stolen = voiceSounds[voice] != -1;
+            voiceSounds[voice] = sound;
+            voicePositions[voice] = 0;
+
+            if (SoundEvent.TYPE.isEnabled()) {
+                SoundEvent event = new SoundEvent();
+                event.name = SOUNDS[sound];
+                event.latency = System.nanoTime() - time;
+                event.stolen = stolen;
+                event.commit();
+            }
+        }
+        queueHead.lazySet(head); // Frees the places in the queue for the producer
+    }
+
+    /**
+     * Load a sound and convert it to 16 bit stereo samples at 44.1 kHz.
+     *
+     * @param name Sound file path + name
+     * @return The samples (left, right, left, right, ...)
+     */
+    private short[] loadSound(String name) {
+        InputStream resource = getClass().getClassLoader().getResourceAsStream(name);
+        assert resource != null; // Make sure sound exists
+
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(
+                new BufferedInputStream(resource))) {
+            // Let Java Sound decode the file to 16 bit samples, keeping rate and channels
+            AudioFormat sourceFormat = source.getFormat();
+            int channels = sourceFormat.getChannels();
+            AudioFormat pcmFormat = new AudioFormat(sourceFormat.getSampleRate(), 16, channels,
+                true, false);
+            byte[] bytes = AudioSystem.getAudioInputStream(pcmFormat, source).readAllBytes();
+
+            // Turn into stereo
+            int frames = bytes.length / (2 * channels);
+            short[] stereo = new short[frames * 2];
+            for (int frame = 0; frame < frames; frame++) {
+                for (int channel = 0; channel < 2; channel++) {
+                    int i = (frame * channels + Math.min(channel, channels - 1)) * 2;
+                    stereo[frame * 2 + channel] = (short) (bytes[i] & 0xFF | bytes[i + 1] << 8);
+                }
+            }
+
+            return resample(stereo, sourceFormat.getSampleRate());
+        } catch (IOException | UnsupportedAudioFileException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Convert stereo samples to the sample rate of the mixer, interpolating linearly.
+     *
+     * @param stereo The samples (left, right, left, right, ...)
+     * @param sampleRate The sample rate of the samples
+     * @return The samples at the sample rate of the mixer
+     */
+    private static short[] resample(short[] stereo, float sampleRate) {
+        if (sampleRate == SAMPLE_RATE) {
+            return stereo;
+        }
+
+        int frames = stereo.length / 2;
+        int resampledFrames = (int) ((long) frames * SAMPLE_RATE / sampleRate);
+        short[] resampled = new short[resampledFrames * 2];
+        double step = sampleRate / SAMPLE_RATE; // Source frames per resampled frame
+        for (int frame = 0; frame < resampledFrames; frame++) {
+            double position = frame * step;
+            int first = (int) position;
+            int second = Math.min(first + 1, frames - 1);
+            double weight = position - first;
+            for (int channel = 0; channel < 2; channel++) {
+                resampled[frame * 2 + channel] = (short) Math.round(
+                    stereo[first * 2 + channel] * (1 - weight)
+                        + stereo[second * 2 + channel] * weight);
+            }
+        }
+        return resampled;
+    }
+}
@@ -0,0 +1,15 @@
+package components;
+
+/**
+ * Where the AudioMixer writes the mixed audio to: 16 bit stereo samples (little endian) at
+ * AudioMixer.SAMPLE_RATE.
+ */
+public interface AudioSink {
+    /**
+     * Write samples, blocking until there's room for them. This paces the mixer.
+     *
+     * @param bytes The samples
+     * @param length Amount of bytes to write
+     */
+    void write(byte[] bytes, int length);
+}
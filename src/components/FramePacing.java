@@ -0,0 +1,58 @@
+package components;
+
+/**
+ * Statistics of the time between frames, to see how evenly a way of drawing shows them.
+ * Recording a frame doesn't create any objects, so it can be done on every frame.
+ */
+public class FramePacing {
+    private final long period; // Expected time between frames (ns)
+    private long lastFrame = 0; // When the previous frame was shown
+    private long intervals = 0; // Amount of intervals between frames
+    private double sum = 0; // Sum of the intervals (ns)
+    private double sumOfSquares = 0; // Sum of the squared intervals, for the deviation
+    private long max = 0; // Longest interval (ns)
+    private long late = 0; // Intervals longer than 1.5 periods (a frame was skipped)
+
+    /**
+     * Initialize FramePacing.
+     * @param refreshRate How many frames per second should be shown
+     */
+    public FramePacing(int refreshRate) {
+        period = 1_000_000_000L / refreshRate;
+    }
+
+    /**
+     * Record that a frame was shown just now.
+     */
+    public void frame() {
+        long now = System.nanoTime();
+        if (lastFrame != 0) {
+            long interval = now - lastFrame;
+            intervals++;
+            sum += interval;
+            sumOfSquares += (double) interval * interval;
+            max = Math.max(max, interval);
+            if (interval > period * 3 / 2) {
+                late++;
+            }
+        }
+        lastFrame = now;
+    }
+
+    /**
+     * Get the statistics as text, e.g. to print them when the game is over.
+     * @return Frame rate, mean interval with its standard deviation, longest interval and how
+     *      many frames were late
+     */
+    public String getSummary() {
+        if (intervals == 0) {
+            return "no frames";
+        }
+
+        double mean = sum / intervals;
+        double deviation = Math.sqrt(Math.max(0, sumOfSquares / intervals - mean * mean));
+        return String.format("%d frames, %.1f fps, interval %.2f ms (sd %.2f ms, max %.2f ms), "
+                + "%d late (> %.2f ms)", intervals + 1, 1e9 / mean, mean / 1e6, deviation / 1e6,
+            max / 1e6, late, period * 1.5 / 1e6);
+    }
+}
@@ -1,44 +1,71 @@
 package components;
 
-import java.awt.AlphaComposite;
-import java.awt.BasicStroke;
+import events.TickEvent;
 import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Graphics2D;
+import java.awt.Font;
 import java.awt.Image;
-import java.awt.Rectangle;
-import java.io.IOException;
-import java.net.URL;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.SplittableRandom;
 import java.util.function.Function;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.LineEvent;
-import javax.sound.sampled.LineUnavailableException;
-import javax.sound.sampled.UnsupportedAudioFileException;
-import objects.Coin;
+import java.util.function.ToDoubleFunction;
 import objects.Effect;
 import objects.EffectType;
 import objects.Flowerpot;
 import objects.Lantern;
-import objects.Lightning;
+import objects.Particle;
 import objects.Person;
-import objects.Raindrop;
 
 /**
  * The Game Engine (instance) with all the logic of the game.
  */
 public class GameEngine {
     /**
-     * Initialize GameEngine.
+     * Initialize GameEngine running at the default tick rate.
      *
      * @param level The level of the game
      */
     public GameEngine(String level) {
-        startTime = System.currentTimeMillis();
+        this(level, DEFAULT_TICK_RATE);
+    }
+
+    /**
+     * Initialize GameEngine with a random seed.
+     *
+     * @param level The level of the game
+     * @param tickRate How many times per second the game is updated (e.g. 60 or 120)
+     */
+    public GameEngine(String level, int tickRate) {
+        this(level, tickRate, new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Initialize GameEngine, loading the resources of the level.
+     *
+     * @param level The level of the game
+     * @param tickRate How many times per second the game is updated (e.g. 60 or 120)
+     * @param seed Seed of the random generator, the same seed (and input) gives the same game
+     */
+    public GameEngine(String level, int tickRate, long seed) {
+        this(new GameResources(level), tickRate, seed);
+    }
+
+    /**
+     * Initialize GameEngine with resources which are already loaded (see GameResources.load).
+     *
+     * @param resources The resources of the level of the game
+     * @param tickRate How many times per second the game is updated (e.g. 60 or 120)
+     * @param seed Seed of the random generator, the same seed (and input) gives the same game
+     */
+    public GameEngine(GameResources resources, int tickRate, long seed) {
+        this.level = resources.level;
+        this.seed = seed;
+        this.random = new SplittableRandom(seed);
+        this.tickRate = tickRate;
+        tickLength = 1_000_000_000L / tickRate;
+        stepScale = (double) BASE_TICK_RATE / tickRate;
 
         switch (level) {
             case "eindhoven": {
@@ -49,7 +76,6 @@ public class GameEngine {
                 negativeLightningPoints = 500;
                 levelSpeed = 0.5;
                 peopleSpeedMultiplier = 0.5;
-                backgroundOffset = 2;
                 break;
             }
             case "warsaw": {
@@ -70,7 +96,6 @@ public class GameEngine {
                 negativeLightningPoints = 600;
                 levelSpeed = 0.75;
                 peopleSpeedMultiplier = 1.3;
-                backgroundOffset = 20;
                 break;
             }
             default: {
@@ -78,7 +103,26 @@ public class GameEngine {
             }
         }
 
-        this.resources = new GameResources(level);
+        this.resources = resources;
+        hud = new Hud(resources.font);
+    }
+
+    /**
+     * Get the seed for a game from an option: a number, "level" for the fixed seed of the level
+     * (everyone plays the same game), or nothing for a random seed.
+     *
+     * @param option The option (can be null)
+     * @param level The level of the game
+     * @return The seed
+     */
+    public static long parseSeed(String option, String level) {
+        if (option == null || option.isEmpty()) {
+            return new SplittableRandom().nextLong();
+        }
+        if (option.equals("level")) {
+            return level.hashCode();
+        }
+        return Long.parseLong(option);
     }
 
     /**
@@ -88,18 +132,39 @@ public class GameEngine {
      */
     public Function<Integer, Void> onEnd;
 
+    // Simulation clock. Every speed and animation length in this class is tuned for a game
+    // updated 60 times per second, stepScale converts those to the configured tick rate.
+    public static final int DEFAULT_TICK_RATE = 60;
+    private static final int BASE_TICK_RATE = 60;
+    private static final long MAX_FRAME_TIME = 1_000_000_000L; // Catch up at most 1s per frame
+    private final int tickRate; // How many updates per second
+    private final long tickLength; // Length of a single update in nanoseconds
+    private final double stepScale; // How much of a 60Hz step a single update is
+    private long lastFrameTime = 0; // When the previous frame was rendered (System.nanoTime)
+    private long accumulator = 0; // Time (ns) which still has to be simulated
+    private boolean ended = false; // Whether onEnd has already been called
+    private final String level; // The level being played
+
+    // Every random decision of the game comes from this generator, so a game can be reproduced
+    private final long seed; // Seed of the random generator
+    private final SplittableRandom random; // Not shared, so engines don't contend with each other
+
     // Resources
     private final GameResources resources; // All the game's resources like background and sprites
-    public Graphics canvas;
+    private Renderer renderer; // Where the game is drawn on
     private int frameWidth;
     private int frameHeight;
 
     // Player state variables
-    private final long startTime; // When the game started, used to accurately display the time
     private double points = 0; // Player's score
     private double cloudX = 100; // Cloud's X position
     private double cloudY = 100; // Cloud's Y position
-    private int frame = 0; // Frame counter, for animation purposes
+    private double lastCloudX = cloudX; // Cloud's X position at the previous tick
+    private double lastCloudY = cloudY; // Cloud's Y position at the previous tick
+    private int frame = 0; // Tick counter, for animation purposes and to keep track of time
+    private double cameraX = 0; // World X position of the left side of the screen
+    private double lastCameraX = 0; // World X position of the camera at the previous tick
+    private double rainTimer = 0; // Steps since the last raindrop, to limit raindrops count
 
     // Level properties, variables are public since Effect class uses these
     public double positivePointsMultiplier = 1; // Used to give more points as a bonus
@@ -125,21 +190,29 @@ public class GameEngine {
     private int negativeLightningPoints; // How many points you get for turning off street lamps
     public double levelSpeed; // How fast map is moving
     public double peopleSpeedMultiplier; // How fast people are walking
-    private int backgroundOffset; // Draw image background with an offset to avoid overlapping
 
-    // Game objects
-    ArrayList<Raindrop> raindrops = new ArrayList<>();
-    ArrayList<Lightning> lightnings = new ArrayList<>();
+    // Game objects. Flowerpots, lanterns, effects and raindrops are positioned in the world (only
+    // the camera moves), the lists are sorted from left to right since objects are generated ahead
+    // of the camera. People and particles are positioned on the screen.
+    RaindropStore raindrops = new RaindropStore();
     ArrayList<Flowerpot> flowerpots = new ArrayList<>();
-    ArrayList<Coin> coins = new ArrayList<>();
     ArrayList<Lantern> lanterns = new ArrayList<>();
     ArrayList<Person> people = new ArrayList<>();
     ArrayList<Effect> effects = new ArrayList<>();
     ArrayList<EffectType> availableEffects = new ArrayList<>(List.of(EffectType.values()));
 
-    // To prevent sounds from playing all at the same time, but rather wait a bit before the
-    // previous one has stopped playing
-    private final HashMap<String, Long> soundDelays = new HashMap<>();
+    // Short-lived visual effects, with how many (60Hz) steps their animation lasts
+    ParticlePool splashes = new ParticlePool(512, 5 * animationDelay); // 5 splash sprites
+    ParticlePool lightnings = new ParticlePool(16, 7 * animationDelay); // 7 lightning sprites
+    ParticlePool coins = new ParticlePool(256, 31); // Coins fade away in 30 steps
+
+    // Broadphase for hit detection, kept up to date whenever objects are generated or removed.
+    // Flowerpots and lanterns don't move in the world, so only moving objects are reindexed
+    private final HitIndex<Person> peopleIndex = new HitIndex<>();
+    private final HitIndex<Flowerpot> flowerpotIndex = new HitIndex<>();
+    private final HitIndex<Lantern> lanternIndex = new HitIndex<>();
+    private final HitIndex<Effect> effectIndex = new HitIndex<>();
+    private double indexedFlowerWidth; // Flowerpot width the flowerpot hitboxes were indexed with
 
     // Size of graphic images, variables are public since Effect class uses these
     public double flowerWidth = 120;
@@ -159,100 +232,398 @@ public class GameEngine {
     public boolean goingUp = false; // Is up (W) key pressed
     public boolean goingDown = false; // Is down (S) key pressed
     public boolean raining = false; // Is space key pressed
+    public boolean muted = false; // Don't play any sounds, e.g. when running without a display
+    private boolean lightningQueued = false; // Strike lightning at the start of the next update
+
+    // The input of a single update as bits, used to record and replay games
+    public static final int INPUT_LEFT = 1;
+    public static final int INPUT_RIGHT = 2;
+    public static final int INPUT_UP = 4;
+    public static final int INPUT_DOWN = 8;
+    public static final int INPUT_RAIN = 16;
+    public static final int INPUT_LIGHTNING = 32;
+    public ReplayRecorder recorder; // Records the input of every update, if set
+
+    // Debug overlay (F3), showing how long every phase of a frame takes
+    public final TickProfiler profiler = new TickProfiler();
+    private Font profilerFont; // Font of the overlay, created when it's shown the first time
+
+    private final Hud hud; // Score and active effects
 
     /**
-     * Tick (update) the game.
+     * Tick the game: run as many fixed-length updates as the time since the previous frame
+     * requires, and then draw the game interpolated between the last two updates.
+     * @param renderer Where to draw the game on
      */
-    public void tick() {
+    public void tick(Renderer renderer) {
+        // Nothing left to do when the game is over
+        if (ended) {
+            return;
+        }
+
+        profiler.startFrame();
+
+        // Flight recorder event of this frame, only created while it's being recorded
+        TickEvent event = TickEvent.TYPE.isEnabled() ? new TickEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        // Update frame size
+        this.renderer = renderer;
+        setFrameSize(renderer.getWidth(), renderer.getHeight());
+
+        // Add the time since the previous frame to the time which still has to be simulated,
+        // limited to prevent an endless catch up after e.g. the computer was suspended
+        long now = System.nanoTime();
+        if (lastFrameTime == 0) {
+            lastFrameTime = now;
+        }
+        accumulator += Math.min(now - lastFrameTime, MAX_FRAME_TIME);
+        lastFrameTime = now;
+
+        // Run fixed-length updates until the simulation has caught up
+        int updates = 0;
+        while (accumulator >= tickLength && !ended) {
+            update();
+            updates++;
+            accumulator -= tickLength;
+        }
+
+        // How far we are between the previous and the next update (0 -> 1)
+        if (!ended) {
+            render((double) accumulator / tickLength);
+        }
+
+        if (event != null && event.shouldCommit()) {
+            event.updates = updates;
+            event.raindrops = raindrops.size();
+            event.people = people.size();
+            event.flowerpots = flowerpots.size();
+            event.lanterns = lanterns.size();
+            event.effects = effects.size();
+            event.particles = splashes.size() + lightnings.size() + coins.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Update the game by a single step without drawing it. Used to run a game without a display
+     * as fast as possible, independent of the time that has passed.
+     */
+    public void step() {
+        if (!ended) {
+            update();
+        }
+    }
+
+    /**
+     * Set the size of the area the game is played in.
+     * @param width Width of the frame
+     * @param height Height of the frame
+     */
+    public void setFrameSize(int width, int height) {
+        frameWidth = width;
+        frameHeight = height;
+    }
+
+    /**
+     * Check whether the game is over.
+     */
+    public boolean isEnded() {
+        return ended;
+    }
+
+    /**
+     * Get the level being played.
+     */
+    public String getLevel() {
+        return level;
+    }
+
+    /**
+     * Get how many times per second the game is updated.
+     */
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    /**
+     * Get the width of the area the game is played in.
+     */
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    /**
+     * Get the height of the area the game is played in.
+     */
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /**
+     * Get the seed of the random generator, to be able to play the same game again.
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get how many updates the game has run.
+     */
+    public int getTickCount() {
+        return frame;
+    }
+
+    /**
+     * Get the player's current score.
+     */
+    public int getPoints() {
+        return (int) points;
+    }
+
+    /**
+     * Update the game by a single fixed-length step.
+     */
+    private void update() {
         // End game when no time left
-        long timeLeft = levelDuration - (System.currentTimeMillis() - startTime);
-        if (timeLeft < 0) {
-            onEnd.apply((int) points);
+        if (getTimeLeft() < 0) {
+            ended = true;
+            if (onEnd != null) {
+                onEnd.apply((int) points);
+            }
             return;
         }
 
-        // Update canvas size
-        Rectangle bounds = canvas.getClipBounds();
-        frameWidth = bounds.width;
-        frameHeight = bounds.height;
+        // Record the input this update is played with
+        if (recorder != null) {
+            recorder.record(frame, getInput());
+        }
 
         // Execute tick
         frame++;
+        if (lightningQueued) {
+            lightningQueued = false;
+            strikeLightning();
+        }
+
+        // Run every phase, measuring how long it takes while the debug overlay is shown
+        profiler.startUpdate();
         generateRain();
+        profiler.lap(TickProfiler.GENERATE_RAIN);
         generateFlowerpots();
+        profiler.lap(TickProfiler.GENERATE_FLOWERPOTS);
         generateLanterns();
+        profiler.lap(TickProfiler.GENERATE_LANTERNS);
         generatePeople();
+        profiler.lap(TickProfiler.GENERATE_PEOPLE);
         generateEffects();
+        profiler.lap(TickProfiler.GENERATE_EFFECTS);
         detectRainHit();
+        profiler.lap(TickProfiler.DETECT_RAIN_HIT);
         detectEffectHit();
-        drawBackground();
-        drawEffects();
-        drawLanterns();
-        drawFlowerpots();
-        drawPeople();
-        drawRaindrops();
+        profiler.lap(TickProfiler.DETECT_EFFECT_HIT);
+        updateCamera();
+        profiler.lap(TickProfiler.UPDATE_CAMERA);
+        updateEffects();
+        profiler.lap(TickProfiler.UPDATE_EFFECTS);
+        updateLanterns();
+        profiler.lap(TickProfiler.UPDATE_LANTERNS);
+        updateFlowerpots();
+        profiler.lap(TickProfiler.UPDATE_FLOWERPOTS);
+        updatePeople();
+        profiler.lap(TickProfiler.UPDATE_PEOPLE);
+        updateRaindrops();
+        profiler.lap(TickProfiler.UPDATE_RAINDROPS);
+        updateParticles();
+        profiler.lap(TickProfiler.UPDATE_PARTICLES);
+        updateCloud();
+        profiler.lap(TickProfiler.UPDATE_CLOUD);
+        updateHitIndexes();
+        profiler.lap(TickProfiler.UPDATE_HIT_INDEXES);
+        profiler.endUpdate();
+    }
+
+    /**
+     * Draw the game.
+     * @param alpha How far we are between the previous (0) and the current (1) update
+     */
+    private void render(double alpha) {
+        // Draw every layer, measuring how long it takes while the debug overlay is shown
+        profiler.startRender();
+        drawBackground(alpha);
+        profiler.lap(TickProfiler.DRAW_BACKGROUND);
+        drawEffects(alpha);
+        profiler.lap(TickProfiler.DRAW_EFFECTS);
+        drawLanterns(alpha);
+        profiler.lap(TickProfiler.DRAW_LANTERNS);
+        drawFlowerpots(alpha);
+        profiler.lap(TickProfiler.DRAW_FLOWERPOTS);
+        drawPeople(alpha);
+        profiler.lap(TickProfiler.DRAW_PEOPLE);
+        drawRaindrops(alpha);
+        profiler.lap(TickProfiler.DRAW_RAINDROPS);
+        drawSplashes();
+        profiler.lap(TickProfiler.DRAW_SPLASHES);
         drawLightning();
-        drawCoins();
-        drawCloud();
+        profiler.lap(TickProfiler.DRAW_LIGHTNING);
+        drawCoins(alpha);
+        profiler.lap(TickProfiler.DRAW_COINS);
+        drawCloud(alpha);
+        profiler.lap(TickProfiler.DRAW_CLOUD);
         drawScore();
+        profiler.lap(TickProfiler.DRAW_SCORE);
         drawBuffs();
+        profiler.lap(TickProfiler.DRAW_BUFFS);
+        profiler.endRender();
+
+        if (profiler.isEnabled()) {
+            drawProfiler();
+        }
     }
 
     /**
-     * Create lightning.
+     * Get the time the game has been running, counted in updates rather than wall-clock time
+     * so a slow frame doesn't take away playing time.
+     * @return The game time in milliseconds
      */
-    public void makeLightning() {
-        Lightning lightning = new Lightning() {
-            {
-                this.x = cloudX;
-                // Generate lightning in part of the cloud that is always covered,
-                // no matter which animation frame is active, which is 1/3 of cloud height
-                this.y = cloudY + cloudHeight / 3;
-                this.state = 0;
-                // Default height is to ground, can be changed in hit detection
-                this.height = frameHeight - this.y;
+    private long getGameTime() {
+        return frame * 1000L / tickRate;
+    }
+
+    /**
+     * Get how much time is left before the game ends.
+     * @return The time left in milliseconds
+     */
+    private long getTimeLeft() {
+        return levelDuration - getGameTime();
+    }
+
+    /**
+     * Convert an animation state (counted in updates) to the sprite it shows, such that
+     * animations run equally fast at every tick rate.
+     * @param state The animation state
+     * @param delay For how many 60Hz steps a single sprite is shown
+     * @return The index of the sprite
+     */
+    private int animationFrame(int state, int delay) {
+        return (int) (state * stepScale) / delay;
+    }
+
+    /**
+     * Interpolate between the previous and the current position of an object.
+     * @param last The position at the previous update
+     * @param current The position at the current update
+     * @param alpha How far we are between those updates (0 -> 1)
+     * @return The position to draw the object at
+     */
+    private static double interpolate(double last, double current, double alpha) {
+        return last + (current - last) * alpha;
+    }
+
+    /**
+     * Binary search for the first object which isn't left of the given position (in the world).
+     * @param objects The objects, sorted from left to right
+     * @param position Gets the X position of an object
+     * @param from The position
+     * @return Index of the object (size of the list if there is none)
+     */
+    private static <T> int firstVisible(List<T> objects, ToDoubleFunction<T> position,
+            double from) {
+        int low = 0;
+        int high = objects.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (position.applyAsDouble(objects.get(middle)) < from) {
+                low = middle + 1;
+            } else {
+                high = middle;
             }
-        };
-        lightnings.add(lightning);
+        }
+        return low;
+    }
+
+    /**
+     * Get the current input (which keys are pressed) as INPUT_ bits.
+     * @return The input
+     */
+    public int getInput() {
+        return (goingLeft ? INPUT_LEFT : 0)
+            | (goingRight ? INPUT_RIGHT : 0)
+            | (goingUp ? INPUT_UP : 0)
+            | (goingDown ? INPUT_DOWN : 0)
+            | (raining ? INPUT_RAIN : 0)
+            | (lightningQueued ? INPUT_LIGHTNING : 0);
+    }
+
+    /**
+     * Set the input (which keys are pressed), e.g. to replay a recorded game.
+     * @param input The input as INPUT_ bits
+     */
+    public void setInput(int input) {
+        goingLeft = (input & INPUT_LEFT) != 0;
+        goingRight = (input & INPUT_RIGHT) != 0;
+        goingUp = (input & INPUT_UP) != 0;
+        goingDown = (input & INPUT_DOWN) != 0;
+        raining = (input & INPUT_RAIN) != 0;
+        if ((input & INPUT_LIGHTNING) != 0) {
+            makeLightning();
+        }
+    }
+
+    /**
+     * Create lightning. It strikes at the start of the next update, so it's part of the input
+     * of that update (at most one lightning per update).
+     */
+    public void makeLightning() {
+        lightningQueued = true;
+    }
+
+    /**
+     * Forget the scaled copies of the cloud and the flower pots, called by Effect after it
+     * changed their size.
+     */
+    public void invalidateScaledSprites() {
+        if (renderer != null) {
+            renderer.invalidateImages(resources.cloudSprite);
+            renderer.invalidateImages(resources.flowerpotGraphics);
+        }
+    }
+
+    /**
+     * Actually strike the lightning.
+     */
+    private void strikeLightning() {
+        // Generate lightning in part of the cloud that is always covered,
+        // no matter which animation frame is active, which is 1/3 of cloud height
+        Particle lightning = lightnings.emit(cloudX, cloudY + cloudHeight / 3);
+        // Default height is to ground, can be changed in hit detection
+        lightning.height = frameHeight - lightning.y;
+
         playSound("lightning");
         detectLightningHit(lightning);
     }
 
+    /**
+     * Emit a coin, showing the player earned or lost points.
+     * @param x X position of the coin
+     * @param y Y position of the coin
+     * @param positive Whether the player earned (true) or lost (false) points
+     */
+    private void emitCoin(double x, double y, boolean positive) {
+        Particle coin = coins.emit(x, y);
+        coin.positive = positive;
+        coin.speedY = positive ? -2 : 2; // Positive coins go up, negative ones down
+    }
+
     /**
      * Play a sound.
      * @param name The name of the sound
      */
     private void playSound(String name) {
-        // Check if some sound is already playing
-        long lastPlayedSound = soundDelays.containsKey(name) ? soundDelays.get(name) : 0;
-
-        // Play sounds on hit, making sure only to allow one sound per 100 milleseconds to prevent
-        // sounds from being "overlapped" with a very small offset (which makes it sound weird)
-        if (System.currentTimeMillis() - lastPlayedSound > 100) {
-            soundDelays.put(name, System.currentTimeMillis());
-            new Thread(() -> {
-                try {
-                    // Get the Sound from the file system
-                    URL sound = getClass().getClassLoader().getResource("sounds/" + name + ".wav");
-                    assert sound != null; // Make sure sound exists
-                    AudioInputStream coinSound = AudioSystem.getAudioInputStream(sound); // stream
-
-                    // Get the clip and play the sound
-                    Clip clip = AudioSystem.getClip();
-                    clip.open(coinSound);
-                    clip.setFramePosition(0);
-
-                    // Whenever the sound is done playing, close the clip
-                    clip.addLineListener(e -> {
-                        if (e.getType() == LineEvent.Type.STOP) {
-                            clip.close();
-                        }
-                    });
-                    clip.start(); // Actually play the sound
-                } catch (LineUnavailableException | IOException | UnsupportedAudioFileException e) {
-                    throw new RuntimeException(e);
-                }
-            }).start();
+        if (!muted) {
+            AudioMixer.getInstance().play(name);
         }
     }
 
@@ -260,24 +631,26 @@ public class GameEngine {
      * Generate rain drops.
      */
     private void generateRain() {
+        // Keep track of time since the last raindrop, but don't save up raindrops while not raining
+        rainTimer = Math.min(rainTimer + stepScale, rainIntensity);
+
         // Generate rain if user is pressing space key
         if (raining) {
             // Limit raindrops count
-            if (frame % rainIntensity == 0) {
-                // Add raindrop object to game
-                raindrops.add(new Raindrop() {
-                    {
-                        // Set raindrop's position randomly across cloud width
-                        // Math.random() - 0.5 for randimizer, and cloudSize * .6 is minimal size
-                        // of all cloud sprites (due to animation some sprites are smaller than 1)
-                        this.x = cloudX + (Math.random() - 0.5) * cloudSize * 0.6;
-                        // Create drop behind the cloud, at widest part
-                        this.y = cloudY + cloudHeight / 3;
-                        speed = 2; // Default speed
-                        quality = rainQuality; // Copy acid property to class instance
-                        state = -1; // State of splash animation sprite
-                    }
-                });
+            if (rainTimer >= rainIntensity) {
+                rainTimer -= rainIntensity;
+
+                // Add raindrop to game, it starts falling (state -1) with the default speed (2)
+                raindrops.add(
+                    // Set raindrop's position randomly across cloud width
+                    // nextDouble() - 0.5 for randimizer, and cloudSize * .6 is minimal size
+                    // of all cloud sprites (due to animation some sprites are smaller than 1)
+                    cameraX + cloudX + (random.nextDouble() - 0.5) * cloudSize * 0.6,
+                    // Create drop behind the cloud, at widest part
+                    cloudY + cloudHeight / 3,
+                    2, // Default speed
+                    rainQuality // Copy acid property to the raindrop
+                );
             }
         }
     }
@@ -287,20 +660,23 @@ public class GameEngine {
      */
     private void generateFlowerpots() {
         // Get last flowerpot position
-        double lastPos = flowerpots.isEmpty() ? 0 : flowerpots.get(flowerpots.size() - 1).x;
+        double lastPos = flowerpots.isEmpty() ? cameraX : flowerpots.get(flowerpots.size() - 1).x;
 
         // Check if new flowerpot needs to be added within declared in game properties range
-        if (flowerpots.isEmpty() || frameWidth * 2 - lastPos > flowerGenerationFrequency) {
+        if (flowerpots.isEmpty()
+                || cameraX + frameWidth * 2 - lastPos > flowerGenerationFrequency) {
             // Add flowerpot object
-            flowerpots.add(new Flowerpot() {
+            Flowerpot flowerpot = new Flowerpot() {
                 {
                     // Randomize flowerpot location, but within declared range
                     this.x = lastPos + flowerGenerationFrequency * 0.5
-                        + flowerGenerationFrequency * Math.random();
+                        + flowerGenerationFrequency * random.nextDouble();
                     // Randomize flowerpot graphics (different flower colors)
-                    this.type = (int) (Math.random() * 5);
+                    this.type = random.nextInt(5);
                 }
-            });
+            };
+            flowerpots.add(flowerpot);
+            indexFlowerpot(flowerpot);
         }
     }
 
@@ -309,20 +685,23 @@ public class GameEngine {
      */
     private void generateLanterns() {
         // Get last lantern position
-        double lastPos = lanterns.isEmpty() ? 0 : lanterns.get(lanterns.size() - 1).x;
+        double lastPos = lanterns.isEmpty() ? cameraX : lanterns.get(lanterns.size() - 1).x;
 
         // Check if new lantern needs to be added within declared in game properties range
-        if (lanterns.isEmpty() || frameWidth * 2 - lastPos > lanternGenerationFrequency) {
-            // Add flowerpot object
-            lanterns.add(new Lantern() {
+        if (lanterns.isEmpty()
+                || cameraX + frameWidth * 2 - lastPos > lanternGenerationFrequency) {
+            // Add lantern object
+            Lantern lantern = new Lantern() {
                 {
                     // Randomize lantern location within declared range, to avoid same distances
-                    this.x = lastPos + lanternGenerationFrequency * 0.5 
-                        + lanternGenerationFrequency * Math.random();
+                    this.x = lastPos + lanternGenerationFrequency * 0.5
+                        + lanternGenerationFrequency * random.nextDouble();
                     // Randomize lantern graphics
-                    this.type = (int) (Math.random() * 3);
+                    this.type = random.nextInt(3);
                 }
-            });
+            };
+            lanterns.add(lantern);
+            indexLantern(lantern);
         }
     }
 
@@ -334,18 +713,21 @@ public class GameEngine {
         while (people.size() < peopleGenerationFrequency) {
 
             // Randomize from which direction person is approaching
-            boolean left = Math.random() > 0.5; // Is the person going from left?
-            people.add(new Person() {
+            boolean left = random.nextBoolean(); // Is the person going from left?
+            Person person = new Person() {
                 {
                     this.x = left ? -personWidth : frameWidth + personWidth;
+                    this.lastX = this.x;
                     // Give a random speed
-                    this.speed = (left ? 1 : -1) * (1 + 5 * Math.random());
+                    this.speed = (left ? 1 : -1) * (1 + 5 * random.nextDouble());
                     // Randomize person graphics (male/female)
-                    this.type = (int) (Math.random() * 2);
+                    this.type = random.nextInt(2);
                     // Set animation position to the first frame
                     this.state = 0;
                 }
-            });
+            };
+            people.add(person);
+            indexPerson(person);
         }
     }
 
@@ -353,131 +735,180 @@ public class GameEngine {
      * Generate (de)buf effects.
      */
     private void generateEffects() {
-        // Generate as many effects as many types there are or as many is allowed by 
+        // Generate as many effects as many types there are or as many is allowed by
         // `effectsGenerationFrequency`, whichever is smaller. It's to prevent same effect twice
         while (effects.size() < Math.min(EffectType.values().length, effectsGenerationFrequency)) {
             // Randomize which effect is generated
-            int effectIndex = (int) (Math.random() * availableEffects.size());
+            int effectIndex = random.nextInt(availableEffects.size());
             EffectType effectType = availableEffects.remove(effectIndex);
 
             // Get position of last visible effect, to generate new one behind that one, to avoid
             // the effect appearing in the middle of the sky, but to gently slide from right side
-            double lastPos = Math.max(frameWidth,
-                effects.isEmpty() ? frameWidth : effects.get(effects.size() - 1).x);
-            effects.add(new Effect(effectType) {
+            double rightSide = cameraX + frameWidth;
+            double lastPos = Math.max(rightSide,
+                effects.isEmpty() ? rightSide : effects.get(effects.size() - 1).x);
+            Effect effect = new Effect(effectType) {
                 {
-                    this.positive = Math.random() > 0.5; // Randomize if positive or neg effect
-                    this.state = (int) (Math.random() * 360); // Randomize sprite animation
+                    this.positive = random.nextBoolean(); // Randomize if positive or neg effect
+                    this.state = random.nextInt(360); // Randomize sprite animation
                     // Randomize position, but set some minimal distance from the previous one
-                    this.x = lastPos + 400 * Math.random() + 100;
+                    this.x = lastPos + 400 * random.nextDouble() + 100;
                     // Set vertical position such that cloud will be able to collect this effect
-                    this.y = Math.random() * (frameHeight - 400);
+                    this.y = random.nextDouble() * (frameHeight - 400);
                 }
-            });
+            };
+            effects.add(effect);
+            indexEffect(effect);
+        }
+    }
+
+    /**
+     * Rebuild the hit detection indexes of the objects which moved or were removed. Flowerpots
+     * and lanterns stay where they are, unless an effect changed the size of the flowerpots.
+     */
+    private void updateHitIndexes() {
+        peopleIndex.clear();
+        for (Person person : people) {
+            indexPerson(person);
+        }
+        effectIndex.clear();
+        for (Effect effect : effects) {
+            indexEffect(effect);
+        }
+        if (flowerWidth != indexedFlowerWidth) {
+            flowerpotIndex.clear();
+            for (Flowerpot flowerpot : flowerpots) {
+                indexFlowerpot(flowerpot);
+            }
         }
     }
 
+    /**
+     * Add a person to the hit detection index, with its whole body as bounds.
+     * @param person The person
+     */
+    private void indexPerson(Person person) {
+        // x is the other side of the person when walking to the left (see drawPeople)
+        int offset = person.speed < 0 ? personWidth : 0;
+        peopleIndex.add(person, person.x - offset, person.x + personWidth - offset);
+    }
+
+    /**
+     * Add a flowerpot to the hit detection index, with its hitbox as bounds.
+     * @param flowerpot The flowerpot
+     */
+    private void indexFlowerpot(Flowerpot flowerpot) {
+        indexedFlowerWidth = flowerWidth;
+        flowerpotIndex.add(flowerpot, flowerpot.x, flowerpot.x + flowerWidth * 0.9);
+    }
+
+    /**
+     * Add a lantern to the hit detection index, with its lamp as bounds.
+     * @param lantern The lantern
+     */
+    private void indexLantern(Lantern lantern) {
+        lanternIndex.add(lantern, lantern.x + lanternWidth * 0.4, lantern.x + lanternWidth * 0.6);
+    }
+
+    /**
+     * Add an effect to the hit detection index, with the point compared to the cloud as bounds.
+     * @param effect The effect
+     */
+    private void indexEffect(Effect effect) {
+        double left = effect.x - effectSize / 2;
+        effectIndex.add(effect, left, left);
+    }
+
     /**
      * Detect if water droplet(s) hit a person or flower pot.
      */
     private void detectRainHit() {
-        for (Raindrop drop : raindrops) {
+        // Go through the raindrops from last to first, since removing a raindrop moves the last
+        // one in its place (see RaindropStore.remove)
+        for (int i = raindrops.size() - 1; i >= 0; i--) {
+            double middle = raindrops.x[i] + 15; // Middle of the droplet in the world
+            double screenMiddle = middle - cameraX; // Middle of the droplet on the screen
+            boolean splashed = false; // Whether droplet hit something
+            double splashY = 0; // Position of the splash, to make animation smooth
+
             // Bottom pixel of the water droplet
-            double bottomOfDroplet = drop.y + dropHeight;
+            double bottomOfDroplet = raindrops.y[i] + dropHeight;
 
             // Check if raindrop reached the ground
             if (bottomOfDroplet >= frameHeight) {
-                // Start raindrop splash animation
-                drop.state = 0;
-                drop.y = frameHeight - dropHeight * 2; // Fix position to make animation smooth
+                splashed = true;
+                splashY = frameHeight - dropHeight * 2;
             } else if (bottomOfDroplet > frameHeight - personHeight
                     && bottomOfDroplet <= frameHeight - flowerHeight / 2) {
                 // Check if raindrop is below top level of people (frameHeight - personHeight),
                 // but still above the top of the flower pots (frameHeight - flowerHeight / 2)
 
-                // Check if raindrop fell on a person
-                for (Person person : people) {
+                // Check if raindrop fell on a person, only looking at people around the droplet
+                int candidates = peopleIndex.query(screenMiddle, screenMiddle);
+                for (int j = 0; j < candidates; j++) {
+                    Person person = peopleIndex.getResult(j);
+
                     // Horizontal hit detection of drop and person. We target middle of the drop,
                     // which has always 30px width, so +15px to get center of it. Persons have
                     // different sprites, so we should limit it's hitbox to not trigger hit when
                     // drop fell just before/after the person (hitbox it from 30% to 70% of person
                     // width). We subtract personWidth if the person is going in opposite direction
                     // (when it's speed is negative), because then x is the other side of person
-
-                    double middle = drop.x + 15; // Middle of the droplet
                     int offset = person.speed < 0 ? personWidth : 0;
                     double left = person.x + personWidth * 0.3 - offset;
                     double right = person.x + personWidth * 0.7 - offset;
-                    if (middle >= left && middle <= right) { // Middle of drop is between L and R
+                    if (screenMiddle >= left && screenMiddle <= right) { // Between L and R
                         // Play sound and decrease points, since drop hit a person
                         playSound("mistake");
                         points -= negativeRainPoints * negativePointsMultiplier;
 
-                        // Start splash animation & fix raindrop position to make animation smooth
-                        drop.state = 0;
-                        drop.y = frameHeight - personHeight - dropHeight;
-
-                        // Add coin object
-                        coins.add(new Coin() {
-                            {
-                                this.x = drop.x + 15; // Middle of droplet
-                                this.y = frameHeight - personHeight; // Top of person
-                                this.positive = false; // Made a mistake, so negative coin
-                                this.state = 0; // Start with first sprite of coin (for animation)
-                            }
-                        });
+                        // Splash on top of the person
+                        splashed = true;
+                        splashY = frameHeight - personHeight - dropHeight;
+
+                        // Made a mistake, so negative coin on top of person
+                        emitCoin(screenMiddle, frameHeight - personHeight, false);
                     }
                 }
             } else if (bottomOfDroplet > frameHeight - flowerHeight / 2) {
                 // Check if water droplet has reached the top of the flower pots
 
-                // Run through all flowerpots
-                for (Flowerpot flowerpot : flowerpots) {
+                // Run through all flowerpots below the droplet
+                int candidates = flowerpotIndex.query(middle, middle);
+                for (int j = 0; j < candidates; j++) {
+                    Flowerpot flowerpot = flowerpotIndex.getResult(j);
+
                     // Hit detection of drop and flowerpot. We target middle of the drop, which has 
                     // always 30px width, so +15 to get center of it. Due to map movement we should 
                     // limit flowerpot hitbox to 90% of its width, without that, the splashing 
                     // animation will be displayed on flowerpot which is no longer there,
                     // because of the map movement.
-                    double middle = drop.x + 15; // Middle of the droplet
                     double left = flowerpot.x;
                     double right = flowerpot.x + flowerWidth * 0.9;
 
                     if (middle >= left && middle <= right) { // Middle of drop is between L and R
+                        int quality = raindrops.quality[i];
                         double earnedPoints = positiveRainPoints * positivePointsMultiplier;
-                        if (drop.quality == -1) { // Acid
+                        if (quality == -1) { // Acid
                             earnedPoints *= -1; // remove points
-                        } else if (drop.quality == 1) { // Droplet contains double amount of water
+                        } else if (quality == 1) { // Droplet contains double amount of water
                             earnedPoints *= 2; // extra points
                         }
 
                         points += earnedPoints; // Add (or remove) points from score
 
-                        // Start splash animation & fix raindrop position to make animation smooth
-                        drop.state = 0;
-                        drop.y = frameHeight - flowerHeight / 2 - dropHeight;
+                        // Splash on top of the flower pot
+                        splashed = true;
+                        splashY = frameHeight - flowerHeight / 2 - dropHeight;
 
-                        if (drop.quality == -1) { // Acid
+                        if (quality == -1) { // Acid
                             playSound("mistake");
-                            // Add negative coin object
-                            coins.add(new Coin() {
-                                {
-                                    this.x = drop.x + 15; // Middle of droplet
-                                    this.y = frameHeight - flowerHeight / 2; // Top of flower pot
-                                    this.positive = false; // Made a mistake, so negative coin
-                                    this.state = 0; // Start with 1st coin sprite (for animation)
-                                }
-                            });
-                        } else if (drop.quality == 0 || drop.quality == 1) {
-                            // Add coin object
+                            // Made a mistake, so negative coin on top of flower pot
+                            emitCoin(screenMiddle, frameHeight - flowerHeight / 2, false);
+                        } else if (quality == 0 || quality == 1) {
                             playSound("coin");
-                            coins.add(new Coin() {
-                                {
-                                    this.x = drop.x + 15; // Middle of droplet
-                                    this.y = frameHeight - flowerHeight / 2; // Top of flower pot
-                                    this.positive = true; // Did a correct action
-                                    this.state = 0; // Start with 1st coin sprite (for animation)
-                                }
-                            });
+                            // Did a correct action, so positive coin on top of flower pot
+                            emitCoin(screenMiddle, frameHeight - flowerHeight / 2, true);
                         }
 
                         // Stop hit detection after 1st hit (since flower pots can't overlap)
@@ -486,6 +917,12 @@ public class GameEngine {
                     }
                 }
             }
+
+            // Replace the droplet by its splash animation
+            if (splashed) {
+                splashes.emit(raindrops.x[i] - cameraX, splashY);
+                raindrops.remove(i);
+            }
         }
     }
 
@@ -493,12 +930,16 @@ public class GameEngine {
      * Detect if lightning hit a person or lantern.
      * @param lightning The lightning object
      */
-    private void detectLightningHit(Lightning lightning) {
-        for (Lantern lantern : lanterns) {
+    private void detectLightningHit(Particle lightning) {
+        double worldX = cameraX + lightning.x; // Lanterns are positioned in the world
+        int candidates = lanternIndex.query(worldX, worldX);
+        for (int i = 0; i < candidates; i++) {
+            Lantern lantern = lanternIndex.getResult(i);
+
             // Hit detection of lightning and lantern. Lantern has big sprite, and we want it to be
             // activated only when lightning hit directly the yellow area of lantern (the lamp),
             // that's why the hitbox of the lantern is limited to 40%-60% of its width.
-            double middle = lightning.x; // Middle of the lightning
+            double middle = worldX; // Middle of the lightning
             double left = lantern.x + lanternWidth * 0.4;
             double right = lantern.x + lanternWidth * 0.6;
 
@@ -512,34 +953,23 @@ public class GameEngine {
                     playSound("coin");
                     points += positiveLightningPoints * positivePointsMultiplier;
 
-                    // Add coin object
-                    coins.add(new Coin() {
-                        {
-                            this.x = lightning.x; // X coordinate
-                            this.y = frameHeight - lanternHeight; // Lamp of lantern
-                            this.positive = true; // Did a correct action
-                            this.state = 0; // Start with first sprite of coin (for animation)
-                        }
-                    });
+                    // Did a correct action, so positive coin on the lamp of the lantern
+                    emitCoin(lightning.x, frameHeight - lanternHeight, true);
                 } else { // Player turned off a lantern (hit it twice), which is a mistake
                     // Play sound and remove points
                     playSound("mistake");
                     points -= negativeLightningPoints * negativePointsMultiplier;
 
-                    // Add negative coin object
-                    coins.add(new Coin() {
-                        {
-                            this.x = lightning.x; // X coordinate
-                            this.y = frameHeight - lanternHeight; // Lamp of lantern
-                            this.positive = false; // Made a mistake, so negative coin
-                            this.state = 0; // Start with first sprite of coin (for animation)
-                        }
-                    });
+                    // Made a mistake, so negative coin on the lamp of the lantern
+                    emitCoin(lightning.x, frameHeight - lanternHeight, false);
                 }
             }
         }
 
-        for (Person person : people) {
+        candidates = peopleIndex.query(lightning.x, lightning.x);
+        for (int i = 0; i < candidates; i++) {
+            Person person = peopleIndex.getResult(i);
+
             // Hit detection of person and lightning. We target whole hitbox of person, because 
             // lightning has a large effective area. The subtraction of personWidth is necessary to 
             // address situation when person is going in opposite direction (its speed is negative),
@@ -552,14 +982,8 @@ public class GameEngine {
             if (middle >= left && middle <= right) {
                 lightning.height -= personHeight; // Make sure to hit the person not the ground
 
-                coins.add(new Coin() {
-                    {
-                        this.x = lightning.x; // X coordinate
-                        this.y = frameHeight - personHeight; // Head of person
-                        this.positive = false; // Made a mistake, so negative coin
-                        this.state = 0; // Start with first sprite of coin (for animation)
-                    }
-                });
+                // Made a mistake, so negative coin on the head of the person
+                emitCoin(lightning.x, frameHeight - personHeight, false);
                 points -= negativeLightningPoints * negativePointsMultiplier;
                 playSound("mistake");
 
@@ -573,20 +997,22 @@ public class GameEngine {
      * Check if cloud touched a (de)buf effect item.
      */
     private void detectEffectHit() {
-        for (int i = effects.size() - 1; i >= 0; i--) {
-            Effect effect = effects.get(i);
+        double worldX = cameraX + cloudX; // Effects are positioned in the world
+        int candidates = effectIndex.query(worldX - cloudSize / 4, worldX + cloudSize / 4);
+        for (int i = 0; i < candidates; i++) {
+            Effect effect = effectIndex.getResult(i);
 
             // Hit detection of cloud and effect in the sky. We want to be sure that effect is not 
             // in use (invisible), hence condition for effect.start==0 (meaning it hasn't started)
             // Then we're checking hitbox of always-visible part of cloud (cloud animation sprites 
             // don't always have same size) which is 25%-75% in horizontal, and 33%-66% in vertical
             if (effect.start == 0
-                    && effect.x - effectSize / 2 > cloudX - cloudSize / 4
-                    && effect.x - effectSize / 2 < cloudX + cloudSize / 4
+                    && effect.x - effectSize / 2 > worldX - cloudSize / 4
+                    && effect.x - effectSize / 2 < worldX + cloudSize / 4
                     && effect.y - effectSize / 2 > cloudY - cloudHeight / 3
                     && effect.y - effectSize / 2 < cloudY + cloudHeight / 3) {
-                effect.start = System.currentTimeMillis(); // To keep track of duration of effect
-                effect.duration = (((int) (Math.random() * 20)) + 5) * 1000; // Randomize duration
+                effect.start = getGameTime(); // To keep track of duration of effect
+                effect.duration = (random.nextInt(20) + 5) * 1000; // Randomize duration
                 if (effect.positive) {
                     playSound("effect-correct");
                 } else {
@@ -598,46 +1024,23 @@ public class GameEngine {
     }
 
     /**
-     * Draw the city background.
+     * Move the camera to the right, which scrolls the whole map.
      */
-    private void drawBackground() {
-        // Draw background, maintaining aspect ratio
-        double imgHeight = frameHeight;
-        double imgWidth = resources.backgroundGraphics.getWidth(null)
-            * (imgHeight / resources.backgroundGraphics.getHeight(null));
-
-        // How much of the background image is already drawn
-        int animationOffset = (int) ((frame * levelSpeed) % imgWidth);
-
-        // Repeat background to create infinite background city graphics
-        for (int i = 0; i < frameWidth / imgWidth + 1; i++) {
-            // Actually draw background
-            canvas.drawImage(
-                resources.backgroundGraphics, // background
-                (int) (i * imgWidth) - backgroundOffset - animationOffset, // Destination X
-                0, // Destination Y
-                (int) ((i + 1) * imgWidth) - animationOffset, // Destination width
-                (int) imgHeight, // Destination height
-                0, // Source X
-                0, // Source Y
-                resources.backgroundGraphics.getWidth(null), // Source width
-                resources.backgroundGraphics.getHeight(null), // Source height
-                null
-            );
-        }
+    private void updateCamera() {
+        lastCameraX = cameraX;
+        cameraX += levelSpeed * stepScale;
     }
 
     /**
-     * Draw (de)buffs on the sky.
+     * Animate the (de)buffs on the sky and remove the ones which ended or left the screen.
      */
-    private void drawEffects() {
-        ((Graphics2D) canvas).setStroke(new BasicStroke(6));
+    private void updateEffects() {
         for (int i = effects.size() - 1; i >= 0; i--) {
             Effect effect = effects.get(i);
 
             // Check if effect is active (so it's start property is set)
             if (effect.start != 0) {
-                if (System.currentTimeMillis() - effect.start >= effect.duration) {
+                if (getGameTime() - effect.start >= effect.duration) {
                     // Effect has ended, so we should remove it
                     effect.undo(this);
                     availableEffects.add(effect.type);
@@ -646,158 +1049,256 @@ public class GameEngine {
                 continue;
             }
 
-            effect.x -= levelSpeed; // Move each effect to the left, together with map
+            effect.state++; // Animate the sprite
 
-            // Remove effect (to free up memory) when it moves outside viewport
-            if (effect.x + effectSize < 0) {
+            // Remove effect (to free up memory) when the camera has passed it
+            if (effect.x + effectSize < cameraX) {
                 availableEffects.add(effect.type);
                 effects.remove(i);
-            } else {
-                Image sprite = resources.bonusSprite[effect.state++ / 2 % 16]; // Animated sprite
-
-                // Draw effect
-                canvas.drawImage(
-                    sprite, // Effect sprite
-                    (int) effect.x, // X
-                    (int) effect.y, // Y
-                    (int) effectSize, // Width
-                    (int) effectSize, // Height
-                    null
-                );
             }
         }
     }
 
     /**
-     * Draw the lanterns.
+     * Remove the lanterns which the camera has passed (to free up memory).
      */
-    private void drawLanterns() {
-        for (int i = lanterns.size() - 1; i >= 0; i--) {
-            Lantern lantern = lanterns.get(i);
+    private void updateLanterns() {
+        // Lanterns are sorted from left to right, so the passed ones are at the start
+        int passed = firstVisible(lanterns, lantern -> lantern.x, cameraX - lanternWidth);
+        if (passed > 0) {
+            lanterns.subList(0, passed).clear();
+            lanternIndex.removeFirst(passed);
+        }
+    }
 
-            lantern.x -= levelSpeed; // Move each lantern to the left, together with map
+    /**
+     * Remove the flower pots which the camera has passed (to free up memory).
+     */
+    private void updateFlowerpots() {
+        // Flower pots are sorted from left to right, so the passed ones are at the start
+        int passed = firstVisible(flowerpots, flowerpot -> flowerpot.x, cameraX - flowerWidth);
+        if (passed > 0) {
+            flowerpots.subList(0, passed).clear();
+            flowerpotIndex.removeFirst(passed);
+        }
+    }
 
-            // Remove lantern (to free up memory) when it moves outside viewport
-            if (lantern.x + lanternWidth < 0) {
-                lanterns.remove(i);
-            } else {
-                Image sprite = resources.lanternGraphics[lantern.type][lantern.enabled ? 1 : 0];
-
-                // Actually draw lantern
-                canvas.drawImage(
-                    sprite, // Lantern sprite
-                    (int) lantern.x, // X
-                    (int) (frameHeight - lanternHeight), // Y
-                    (int) lanternWidth, // Width
-                    (int) lanternHeight, // Height
-                    null
-                );
+    /**
+     * Let the people walk and remove the ones which left the screen.
+     */
+    private void updatePeople() {
+        for (int i = people.size() - 1; i >= 0; i--) {
+            Person person = people.get(i);
+
+            // Move each person in the direction they're walking
+            person.lastX = person.x;
+            person.x += person.speed * peopleSpeedMultiplier * stepScale;
+            person.state++; // Animate the sprite
+
+            // Remove person (to free up memory) when it moves outside viewport
+            if (person.x + personWidth < 0 || person.x - personWidth > frameWidth) {
+                people.remove(i);
             }
         }
     }
 
     /**
-     * Draw the flower pots.
+     * Let the rain droplets fall.
      */
-    private void drawFlowerpots() {
-        for (int i = flowerpots.size() - 1; i >= 0; i--) {
-            Flowerpot flowerpot = flowerpots.get(i);
+    private void updateRaindrops() {
+        // Move raindrops according to gravity (speed) and wind
+        raindrops.fall(3 * stepScale, wind * stepScale);
+    }
 
-            flowerpot.x -= levelSpeed; // Move each flowerpot to the left, together with map
+    /**
+     * Animate the particles (splashes, lightning and coins) and remove the ones which finished.
+     */
+    private void updateParticles() {
+        splashes.update(stepScale);
+        lightnings.update(stepScale);
+        coins.update(stepScale);
+    }
 
-            // Remove flowerpot (to free up memory) when it moves outside viewport
-            if (flowerpot.x + flowerWidth < 0) {
-                flowerpots.remove(i);
-            } else {
-                Image sprite = resources.flowerpotGraphics[flowerpot.type];
-
-                // Actually draw flowerpot
-                canvas.drawImage(
-                    sprite, // Flowerpot sprite
-                    (int) flowerpot.x, // X
-                    (int) (frameHeight - flowerHeight), // Y
-                    (int) flowerWidth, // Width
-                    (int) flowerHeight, // Height
-                    null
-                );
+    /**
+     * Move the cloud (player).
+     */
+    private void updateCloud() {
+        lastCloudX = cloudX;
+        lastCloudY = cloudY;
+
+        // Apply cloud transforms
+        if (goingLeft) {
+            cloudX = Math.max(0, cloudX - 3 * leftMultiplier * stepScale);
+        }
+        if (goingRight) {
+            cloudX = Math.min(frameWidth, cloudX + 3 * rightMultiplier * stepScale);
+        }
+        if (goingUp) {
+            cloudY = Math.max(0, cloudY - 3 * upMultiplier * stepScale);
+        }
+        if (goingDown) {
+            cloudY = Math.min(frameHeight - 400, cloudY + 3 * downMultiplier * stepScale);
+        }
+    }
+
+    /**
+     * Draw the city background.
+     * @param alpha How far we are between the previous and the current update
+     */
+    private void drawBackground(double alpha) {
+        double camera = interpolate(lastCameraX, cameraX, alpha);
+
+        // Repeat the layers to create infinite background city graphics, far layers scroll slower
+        for (int i = 0; i < resources.backgroundLayers.length; i++) {
+            renderer.drawRepeated(resources.backgroundLayers[i], frameHeight,
+                camera * resources.backgroundSpeeds[i]);
+        }
+    }
+
+    /**
+     * Draw (de)buffs on the sky.
+     * @param alpha How far we are between the previous and the current update
+     */
+    private void drawEffects(double alpha) {
+        double camera = interpolate(lastCameraX, cameraX, alpha);
+
+        // Only draw the effects on the screen, effects are sorted from left to right
+        int first = firstVisible(effects, effect -> effect.x, camera - effectSize);
+        for (int i = first; i < effects.size() && effects.get(i).x <= camera + frameWidth; i++) {
+            Effect effect = effects.get(i);
+
+            // Active effects aren't visible on the sky anymore
+            if (effect.start != 0) {
+                continue;
             }
+
+            // Animated sprite
+            Image sprite = resources.bonusSprite[animationFrame(effect.state, 2) % 16];
+
+            // Draw effect
+            renderer.drawImage(
+                sprite, // Effect sprite
+                (int) (effect.x - camera), // X
+                (int) effect.y, // Y
+                (int) effectSize, // Width
+                (int) effectSize // Height
+            );
+        }
+    }
+
+    /**
+     * Draw the lanterns.
+     * @param alpha How far we are between the previous and the current update
+     */
+    private void drawLanterns(double alpha) {
+        double camera = interpolate(lastCameraX, cameraX, alpha);
+
+        // Only draw the lanterns on the screen
+        int first = firstVisible(lanterns, lantern -> lantern.x, camera - lanternWidth);
+        for (int i = first; i < lanterns.size() && lanterns.get(i).x <= camera + frameWidth; i++) {
+            Lantern lantern = lanterns.get(i);
+            Image sprite = resources.lanternGraphics[lantern.type][lantern.enabled ? 1 : 0];
+
+            // Actually draw lantern
+            renderer.drawImage(
+                sprite, // Lantern sprite
+                (int) (lantern.x - camera), // X
+                (int) (frameHeight - lanternHeight), // Y
+                (int) lanternWidth, // Width
+                (int) lanternHeight // Height
+            );
+        }
+    }
+
+    /**
+     * Draw the flower pots.
+     * @param alpha How far we are between the previous and the current update
+     */
+    private void drawFlowerpots(double alpha) {
+        double camera = interpolate(lastCameraX, cameraX, alpha);
+
+        // Only draw the flower pots on the screen
+        int first = firstVisible(flowerpots, flowerpot -> flowerpot.x, camera - flowerWidth);
+        for (int i = first; i < flowerpots.size() && flowerpots.get(i).x <= camera + frameWidth;
+                i++) {
+            Flowerpot flowerpot = flowerpots.get(i);
+            Image sprite = resources.flowerpotGraphics[flowerpot.type];
+
+            // Actually draw flowerpot
+            renderer.drawImage(
+                sprite, // Flowerpot sprite
+                (int) (flowerpot.x - camera), // X
+                (int) (frameHeight - flowerHeight), // Y
+                (int) flowerWidth, // Width
+                (int) flowerHeight // Height
+            );
         }
     }
 
     /**
      * Draw the people.
+     * @param alpha How far we are between the previous and the current update
      */
-    private void drawPeople() {
+    private void drawPeople(double alpha) {
         for (int i = people.size() - 1; i >= 0; i--) {
             Person person = people.get(i);
 
-            // Move each person to the left, together with map
-            person.x += person.speed * peopleSpeedMultiplier;
-
-            // Remove flowerpot (to free up memory) when it moves outside viewport
-            if (person.x + personWidth < 0 || person.x - personWidth > frameWidth) {
-                people.remove(i);
-            } else {
-                // Animate the sprite
-                Image sprite = resources.peopleSprites[person.type][(person.state++ / 4) % 16];
-
-                // Actually draw person
-                canvas.drawImage(
-                    sprite, // Animated person sprite
-                    (int) person.x, // X
-                    (int) (frameHeight - personHeight), // Y
-                    (int) person.speed > 0 ? personWidth : -personWidth, // Inversed when backwards
-                    (int) personHeight, // Height
-                    null
-                );
-            }
+            // Animate the sprite
+            int spriteNumber = animationFrame(person.state, 4) % 16;
+            Image sprite = resources.peopleSprites[person.type][spriteNumber];
+
+            // Actually draw person
+            renderer.drawImage(
+                sprite, // Animated person sprite
+                (int) interpolate(person.lastX, person.x, alpha), // X
+                (int) (frameHeight - personHeight), // Y
+                (int) person.speed > 0 ? personWidth : -personWidth, // Inversed when backwards
+                (int) personHeight // Height
+            );
         }
     }
 
     /**
      * Draw the rain droplets.
+     * @param alpha How far we are between the previous and the current update
      */
-    private void drawRaindrops() {
+    private void drawRaindrops(double alpha) {
+        double camera = interpolate(lastCameraX, cameraX, alpha);
+
         // Draw raindrops
         for (int i = raindrops.size() - 1; i >= 0; i--) {
-            Raindrop drop = raindrops.get(i);
-
-            // If raindrop is (still) falling
-            if (drop.state == -1) {
-                // Move raindrop according to gravity (speed) and wind
-                drop.y += 3 * drop.speed;
-                drop.x -= levelSpeed + wind;
-
-                // Actually draw droplet
-                canvas.drawImage(
-                    resources.waterDropGraphics, // Droplet sprite
-                    (int) drop.x, // X
-                    (int) drop.y, // Y
-                    30, // Width
-                    (int) dropHeight, // Height
-                    null
-                );
-            } else { // If raindrop is splashing
-                Image sprite = resources.waterDropSprite[drop.state++ / animationDelay];
-                double ratio = resources.waterDropGraphics.getHeight(null)
-                    / (double) resources.waterDropGraphics.getWidth(null);
-
-                // Draw one sprite of the splash animation, next tick the next sprite is drawn to
-                // create the animation effect (taking animationDely in consideration ofc)
-                canvas.drawImage(
-                    sprite, // Animated droplet sprite
-                    (int) drop.x, // X
-                    (int) drop.y, // Y
-                    60, // Width
-                    (int) (60 * ratio), // Height
-                    null
-                );
+            // Actually draw droplet
+            renderer.drawImage(
+                resources.waterDropGraphics, // Droplet sprite
+                (int) (interpolate(raindrops.lastX[i], raindrops.x[i], alpha) - camera), // X
+                (int) interpolate(raindrops.lastY[i], raindrops.y[i], alpha), // Y
+                30, // Width
+                (int) dropHeight // Height
+            );
+        }
+    }
 
-                // Remove raindrop after splash ends
-                if (drop.state >= resources.waterDropSprite.length * animationDelay) {
-                    raindrops.remove(i);
-                }
-            }
+    /**
+     * Draw the splashes of the rain droplets.
+     */
+    private void drawSplashes() {
+        double ratio = resources.waterDropGraphics.getHeight(null)
+            / (double) resources.waterDropGraphics.getWidth(null);
+
+        for (int i = splashes.size() - 1; i >= 0; i--) {
+            Particle splash = splashes.get(i);
+            int spriteNumber = animationFrame(splash.state, animationDelay);
+            Image sprite = resources.waterDropSprite[spriteNumber];
+
+            // Draw one sprite of the splash animation, next tick the next sprite is drawn to
+            // create the animation effect (taking animationDely in consideration ofc)
+            renderer.drawImage(
+                sprite, // Animated droplet sprite
+                (int) splash.x, // X
+                (int) splash.y, // Y
+                60, // Width
+                (int) (60 * ratio) // Height
+            );
         }
     }
 
@@ -806,96 +1307,68 @@ public class GameEngine {
      */
     private void drawLightning() {
         for (int i = lightnings.size() - 1; i >= 0; i--) {
-            Lightning lightning = lightnings.get(i);
+            Particle lightning = lightnings.get(i);
 
-            Image sprite = resources.lightningSprite[lightning.state++ / animationDelay];
+            int spriteNumber = animationFrame(lightning.state, animationDelay);
+            Image sprite = resources.lightningSprite[spriteNumber];
 
             // Draw one sprite of the animation, next tick the next sprite is drawn to
             // create the animation effect (taking animationDely in consideration ofc)
-            canvas.drawImage(
+            renderer.drawStretched(
                 sprite, // Animated lightning sprite
                 (int) (lightning.x - (cloudSize / 4)), // X
                 (int) lightning.y, // Y
                 (int) (cloudSize / 2), // Width
-                (int) lightning.height, // Height
-                null
+                (int) lightning.height // Height
             );
-
-            // Remove lightning after animation is done
-            if (lightning.state >= resources.lightningSprite.length * animationDelay) {
-                lightnings.remove(i);
-            }
         }
     }
 
     /**
      * Draw the coins.
+     * @param alpha How far we are between the previous and the current update
      */
-    private void drawCoins() {
+    private void drawCoins(double alpha) {
         double coinSize = 30;
         for (int i = coins.size() - 1; i >= 0; i--) {
-            Coin coin = coins.get(i);
-            coin.y -= coin.positive ? 2 : -2; // Animate coin going up
+            Particle coin = coins.get(i);
 
             // Add dynamic transparency to each coin (as its slowly disappearing when going up)
-            Graphics2D g2 = (Graphics2D) canvas;
-            AlphaComposite ac = AlphaComposite.getInstance(AlphaComposite.SRC_OVER,
-                (float) (1 - coin.state++ / 30d));
-            g2.setComposite(ac);
+            renderer.setOpacity((float) Math.max(0, 1 - coin.state * stepScale / 30d));
 
             int coinType = coin.positive ? 1 : 0; // Positive or negative coin
-            int frameNumber = (coin.state / animationDelay) % resources.coinsSprite.length;
+            int frameNumber = animationFrame(coin.state, animationDelay)
+                % resources.coinsSprite.length;
             Image sprite = resources.coinsSprite[coinType][frameNumber];
 
             // Actually draw coin
-            canvas.drawImage(
+            renderer.drawImage(
                 sprite, // Animated coin sprite
                 (int) coin.x - 15, // X
-                (int) coin.y - (coin.positive ? 15 : 0), // Y
+                (int) interpolate(coin.lastY, coin.y, alpha) - (coin.positive ? 15 : 0), // Y
                 (int) coinSize, // Width
-                (int) coinSize, // Height
-                null
+                (int) coinSize // Height
             );
-
-            // Remove coin after animation
-            if (coin.state > 30) {
-                coins.remove(i);
-            }
         }
         // Reset transparency to 100%
-        Graphics2D g2 = (Graphics2D) canvas;
-        AlphaComposite ac = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1f);
-        g2.setComposite(ac);
+        renderer.setOpacity(1f);
     }
 
     /**
      * Draw the cloud (player).
+     * @param alpha How far we are between the previous and the current update
      */
-    private void drawCloud() {
-        // Apply cloud transforms
-        if (goingLeft) {
-            cloudX = Math.max(0, cloudX - 3 * leftMultiplier);
-        }
-        if (goingRight) {
-            cloudX = Math.min(frameWidth, cloudX + 3 * rightMultiplier);
-        }
-        if (goingUp) {
-            cloudY = Math.max(0, cloudY - 3 * upMultiplier);
-        }
-        if (goingDown) {
-            cloudY = Math.min(frameHeight - 400, cloudY + 3 * downMultiplier);
-        }
-
-        Image sprite = resources.cloudSprite[(frame / 20) % 16]; // Animate cloud sprites
+    private void drawCloud(double alpha) {
+        // Animate cloud sprites
+        Image sprite = resources.cloudSprite[animationFrame(frame, 20) % 16];
 
         // Actually draw cloud
-        canvas.drawImage(
+        renderer.drawImage(
             sprite, // Animated cloud sprite
-            (int) (cloudX - cloudSize / 2d), // X
-            (int) (cloudY - cloudHeight / 2d), // Y
+            (int) (interpolate(lastCloudX, cloudX, alpha) - cloudSize / 2d), // X
+            (int) (interpolate(lastCloudY, cloudY, alpha) - cloudHeight / 2d), // Y
             (int) cloudSize, // Width
-            (int) cloudHeight, // Height
-            null
+            (int) cloudHeight // Height
         );
     }
 
@@ -903,76 +1376,68 @@ public class GameEngine {
      * Draw the score (top left).
      */
     private void drawScore() {
-        // Draw semi-transparent (70%) rounded rectangles as a background to
-        // time left and current score
-        Graphics2D g2 = (Graphics2D) canvas;
-        g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f));
-        canvas.setColor(Color.decode("#333333"));
-        canvas.fillRoundRect(10, 10, 160, 45, 16, 16);
-        canvas.fillRoundRect(180, 10, 160, 45, 16, 16);
-        g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1f));
-
-        // Amount of time left
-        long timeLeft = levelDuration - (System.currentTimeMillis() - startTime);
-        // Amount of time left per minute, seconds and milliseconds
-        long minutes = timeLeft / 60000;
-        long seconds = (timeLeft % 60000) / 1000;
-        long milliseconds = (timeLeft * 10) % 1000 / 10;
-
-        // Draw the time left and collected points
-        canvas.setColor(Color.white);
-        canvas.setFont(resources.font.deriveFont(20f));
-        canvas.drawString(String.valueOf((int) points), 20, 45);
-        canvas.drawString(String.format("%02d:%02d.%02d", minutes, seconds, milliseconds), 190, 45);
-
-        // Draw the labels (points and time)
-        canvas.setFont(resources.font.deriveFont(12f));
-        canvas.drawString(Language.getString("points"), 20, 25);
-        canvas.drawString(Language.getString("time"), 190, 25);
+        hud.drawScore(renderer, (int) points, getTimeLeft());
     }
 
     /**
      * Draw active (de)buffs effects.
      */
     private void drawBuffs() {
-        // Get 2D graphics to manipulate transparency
-        Graphics2D g2 = (Graphics2D) canvas;
+        hud.drawBuffs(renderer, effects, getGameTime());
+    }
+
+    /**
+     * Draw the debug overlay (top right): frame rate, how long every phase takes, how many
+     * objects there are and how much memory is used.
+     */
+    private void drawProfiler() {
+        if (profilerFont == null) {
+            profilerFont = resources.font.deriveFont(9f);
+        }
 
-        // How many effects are already displayed on screen
-        int position = 0;
+        int x = frameWidth - 330;
+        int lineHeight = 11;
+        renderer.setOpacity(0.7f);
+        renderer.setColor(Color.BLACK);
+        renderer.fillRoundRect(x - 10, 10, 330, (TickProfiler.PHASES.length + 7) * lineHeight,
+            8, 8);
+        renderer.setOpacity(1f);
+        renderer.setFont(profilerFont);
+        renderer.setColor(Color.WHITE);
+
+        int y = 10 + lineHeight;
+        renderer.drawString("FPS " + profiler.getFramesPerSecond()
+            + " (" + tickRate + " updates/s)", x, y);
+        y += lineHeight;
+        renderer.drawString(String.format("%-18s %8s %8s %8s", "us", "p50", "p99", "max"), x, y);
+        for (int phase = 0; phase < TickProfiler.PHASES.length; phase++) {
+            y += lineHeight;
+            renderer.drawString(String.format("%-18s %8.1f %8.1f %8.1f",
+                TickProfiler.PHASES[phase],
+                profiler.getPercentile(phase, 0.5) / 1000d,
+                profiler.getPercentile(phase, 0.99) / 1000d,
+                profiler.getMax(phase) / 1000d), x, y);
+        }
 
-        // Iterate through all effects, but draw only active (started)
-        for (Effect effect : effects) {
-            if (effect.start != 0) {
-                // Draw background of effect
-                g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f));
-                canvas.setColor(Color.decode("#333333"));
-                canvas.fillRoundRect(10, 60 + 50 * position, 280, 45, 8, 8);
-                g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1));
-
-                // Draw title, description and time left of effect
-                canvas.setColor(Color.decode(effect.positive ? "#00FF00" : "#FF0000"));
-                canvas.setFont(resources.font.deriveFont(14f));
-                String[] texts = effect.type.getDescription(effect.positive).split("\n");
-                canvas.drawString(texts[0], 15, 60 + 50 * position + 15);
-                canvas.setColor(Color.decode("#FFFFFF"));
-                canvas.setFont(resources.font.deriveFont(10f));
-                canvas.drawString(texts[1], 15, 60 + 50 * position + 27);
-                canvas.setColor(Color.decode("#CCCCCC"));
-
-                // Amount of duration left
-                long timeLeft = effect.duration - (System.currentTimeMillis() - effect.start);
-                // Amount of duration left per minute, seconds and milliseconds
-                long minutes = timeLeft / 60000;
-                long seconds = (timeLeft % 60000) / 1000;
-                long milliseconds = (timeLeft * 10) % 1000;
-                String timeString = String.format("%02d:%02d.%02d", minutes, seconds, milliseconds);
-
-                // Draw how much duration this effect has left
-                canvas.drawString(timeString, 15, 60 + 50 * position + 40);
-
-                position++;
-            }
+        // Amount of objects
+        y += lineHeight * 2;
+        renderer.drawString("raindrops " + raindrops.size() + "  people " + people.size()
+            + "  flowerpots " + flowerpots.size(), x, y);
+        y += lineHeight;
+        renderer.drawString("lanterns " + lanterns.size() + "  effects " + effects.size()
+            + "  particles " + (splashes.size() + lightnings.size() + coins.size()), x, y);
+
+        // Memory and garbage collection
+        Runtime runtime = Runtime.getRuntime();
+        long collections = 0;
+        long collectionTime = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += collector.getCollectionCount();
+            collectionTime += collector.getCollectionTime();
         }
+        y += lineHeight;
+        renderer.drawString(String.format("heap %d/%d MB  gc %d (%d ms)",
+            (runtime.totalMemory() - runtime.freeMemory()) >> 20, runtime.totalMemory() >> 20,
+            collections, collectionTime), x, y);
     }
 }
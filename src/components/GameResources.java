@@ -1,98 +1,244 @@
 package components;
 
 import java.awt.Font;
-import java.awt.FontFormatException;
-import java.awt.Image;
-import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
-import javax.swing.ImageIcon;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.function.Function;
 
 /**
- * All the resources of the game (think of images, font, etc.).
+ * All the resources of the game (think of images, font, etc.), from the AssetCache. Images are
+ * decoded completely while loading, so drawing them never waits for decoding. Use load to
+ * decode them in parallel in the background, and release when the game is over.
  */
 public class GameResources {
+    // Parallax layers of the background (bg-<level><layer>.png), from far to near, and how fast
+    // they scroll compared to the level. Only the nearest layer is required.
+    private static final String[] BACKGROUND_LAYERS = {"-far", "-middle", ""};
+    private static final double[] BACKGROUND_SPEEDS = {0.25, 0.5, 1};
+
+    public final String level; // The level the resources are for
     public final Font font;
-    public final Image backgroundGraphics;
-    public final Image waterDropGraphics; // normal sprite
-    public final Image[] flowerpotGraphics;
-    public final Image[] cloudSprite;
-    public final Image[] waterDropSprite; // splashed droplet sprites
-    public final Image[][] coinsSprite;
-    public final Image[] lightningSprite;
-    public final Image[][] peopleSprites;
-    public final Image[][] lanternGraphics;
-    public final Image[] bonusSprite;
+    public final BufferedImage[] backgroundLayers; // From far to near
+    public final double[] backgroundSpeeds; // How fast every layer scrolls compared to the level
+    private final List<String> backgroundNames = new ArrayList<>(); // Layers, to release them
+    public final BufferedImage waterDropGraphics; // normal sprite
+    public final BufferedImage[] flowerpotGraphics;
+    public final BufferedImage[] cloudSprite;
+    public final BufferedImage[] waterDropSprite; // splashed droplet sprites
+    public final BufferedImage[][] coinsSprite;
+    public final BufferedImage[] lightningSprite;
+    public final BufferedImage[][] peopleSprites;
+    public final BufferedImage[][] lanternGraphics;
+    public final BufferedImage[] bonusSprite;
 
     /**
-     * Initialize GameResources.
+     * Initialize GameResources, loading the images one by one on this thread.
      * @param level The level of the game
      */
     public GameResources(String level) {
-        flowerpotGraphics = new Image[5]; // 5 different flower pots
-        cloudSprite = new Image[16]; // 16 different cloud sprites
-        waterDropSprite = new Image[5]; // 5 different droplet (splashed) sprite
-        coinsSprite = new Image[2][6]; // 2 coins with 6 different sprites each
-        lightningSprite = new Image[7]; // 7 different sprites
-        peopleSprites = new Image[2][16]; // 2 persons with 16 different sprites each
-        lanternGraphics = new Image[3][2]; // 3 lanterns with 2 different sprites each (on and off)
-        bonusSprite = new Image[18]; // 18 different bonus sprites
-
-        InputStream is = this.getClass().getClassLoader()
-            .getResourceAsStream("joystix_monospace.otf");
+        this(level, AssetCache.getInstance().getFont(), GameResources::loadImage);
+    }
 
-        try {
-            assert is != null;
-            font = Font.createFont(Font.TRUETYPE_FONT, is);
-        } catch (FontFormatException | IOException e) {
-            throw new RuntimeException(e);
-        }
+    /**
+     * Initialize GameResources.
+     * @param level The level of the game
+     * @param font The font
+     * @param images Gives the image of a file path + name (see getImageNames)
+     */
+    private GameResources(String level, Font font, Function<String, BufferedImage> images) {
+        this.level = level;
+        this.font = font;
+        flowerpotGraphics = new BufferedImage[5]; // 5 different flower pots
+        cloudSprite = new BufferedImage[16]; // 16 different cloud sprites
+        waterDropSprite = new BufferedImage[5]; // 5 different droplet (splashed) sprite
+        coinsSprite = new BufferedImage[2][6]; // 2 coins with 6 different sprites each
+        lightningSprite = new BufferedImage[7]; // 7 different sprites
+        peopleSprites = new BufferedImage[2][16]; // 2 persons with 16 different sprites each
+        lanternGraphics = new BufferedImage[3][2]; // 3 lanterns with 2 sprites each (on and off)
+        bonusSprite = new BufferedImage[18]; // 18 different bonus sprites
 
         // Static graphics
-        backgroundGraphics = loadImage("bg-" + level + ".png");
-        waterDropGraphics = loadImage("drop/main.png");
+        List<BufferedImage> layers = new ArrayList<>();
+        List<Double> speeds = new ArrayList<>();
+        for (int i = 0; i < BACKGROUND_LAYERS.length; i++) {
+            String name = "bg-" + level + BACKGROUND_LAYERS[i] + ".png";
+            boolean optional = i < BACKGROUND_LAYERS.length - 1;
+            if (optional && GameResources.class.getClassLoader().getResource(name) == null) {
+                continue;
+            }
+            backgroundNames.add(name);
+            layers.add(trimTransparentEdges(images.apply(name)));
+            speeds.add(BACKGROUND_SPEEDS[i]);
+        }
+        backgroundLayers = layers.toArray(new BufferedImage[0]);
+        backgroundSpeeds = speeds.stream().mapToDouble(Double::doubleValue).toArray();
+        waterDropGraphics = images.apply("drop/main.png");
         for (int i = 0; i < 5; i++) {
-            flowerpotGraphics[i] = loadImage("flowers/" + i + ".png");
+            flowerpotGraphics[i] = images.apply("flowers/" + i + ".png");
         }
 
         // Sprites
         for (int i = 0; i < 16; i++) {
-            cloudSprite[i] = loadImage("cloud/" + i + ".png");
+            cloudSprite[i] = images.apply("cloud/" + i + ".png");
         }
         for (int i = 0; i < 5; i++) {
-            waterDropSprite[i] = loadImage("drop/" + i + ".png");
+            waterDropSprite[i] = images.apply("drop/" + i + ".png");
         }
         for (int i = 0; i < 2; i++) {
             for (int j = 0; j < 6; j++) {
-                coinsSprite[i][j] = loadImage("coin/" + i + "-" + j + ".png");
+                coinsSprite[i][j] = images.apply("coin/" + i + "-" + j + ".png");
             }
         }
         for (int i = 0; i < 7; i++) {
-            lightningSprite[i] = loadImage("lightning/" + i + ".png");
+            lightningSprite[i] = images.apply("lightning/" + i + ".png");
         }
         for (int i = 0; i < 2; i++) {
             for (int j = 0; j < 16; j++) {
-                peopleSprites[i][j] = loadImage("people/" + i + "-" + j + ".png");
+                peopleSprites[i][j] = images.apply("people/" + i + "-" + j + ".png");
             }
         }
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 2; j++) {
-                lanternGraphics[i][j] = loadImage("lanterns/" + i + "-" + j + ".png");
+                lanternGraphics[i][j] = images.apply("lanterns/" + i + "-" + j + ".png");
             }
         }
         for (int i = 0; i < 18; i++) {
-            bonusSprite[i] = loadImage("bonus/" + i + ".png");
+            bonusSprite[i] = images.apply("bonus/" + i + ".png");
+        }
+    }
+
+    /**
+     * Load the resources of a level in the background, decoding the images which aren't in the
+     * AssetCache yet in parallel on the common ForkJoinPool.
+     * @param level The level of the game
+     * @param progress Called with the part which is loaded (0 -> 1) after every image, on the
+     *                 thread which loaded it
+     * @return The resources, once every image is decoded
+     */
+    public static CompletableFuture<GameResources> load(String level, DoubleConsumer progress) {
+        List<String> names = getImageNames(level);
+        Map<String, BufferedImage> images = new ConcurrentHashMap<>();
+        AtomicInteger loaded = new AtomicInteger();
+
+        CompletableFuture<?>[] decoding = new CompletableFuture<?>[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            decoding[i] = CompletableFuture.runAsync(() -> {
+                images.put(name, loadImage(name));
+                progress.accept((double) loaded.incrementAndGet() / names.size());
+            }, ForkJoinPool.commonPool());
+        }
+
+        return CompletableFuture.allOf(decoding).handle((unused, error) -> {
+            if (error != null) {
+                for (String name : names) {
+                    if (name.startsWith("bg-") && images.containsKey(name)) {
+                        AssetCache.getInstance().releaseImage(name);
+                    }
+                }
+                throw new CompletionException(error.getCause());
+            }
+            return new GameResources(level, AssetCache.getInstance().getFont(), images::get);
+        });
+    }
+
+    /**
+     * Get the file paths + names of all images of a level, in the order they're used.
+     * @param level The level of the game
+     * @return The images
+     */
+    public static List<String> getImageNames(String level) {
+        List<String> names = new ArrayList<>();
+        new GameResources(level, null, name -> {
+            names.add(name);
+            return null;
+        });
+        return names;
+    }
+
+    /**
+     * Stop using the resources, so the background of the level can be freed when it's not
+     * needed anymore (the sprites are shared by every level and stay loaded).
+     */
+    public void release() {
+        for (String name : backgroundNames) {
+            AssetCache.getInstance().releaseImage(name);
+        }
+    }
+
+    /**
+     * Cut off the (partly) transparent columns at the left and right of a background, and the
+     * columns at the right which don't fit the left, so it can be repeated without seams.
+     * @param image The background (null while only getting the names of the images)
+     * @return The background without transparent edges
+     */
+    private static BufferedImage trimTransparentEdges(BufferedImage image) {
+        if (image == null) {
+            return null;
+        }
+
+        int left = 0;
+        while (left < image.getWidth() - 1 && isTranslucentColumn(image, left)) {
+            left++;
+        }
+        int right = image.getWidth() - 1;
+        while (right > left && isTranslucentColumn(image, right)) {
+            right--;
+        }
+
+        // Some backgrounds end with a few columns which don't fit the start (e.g. a different
+        // color), so end right before the column which looks most like the first one, which
+        // makes the first column continue the background when repeated
+        int end = right;
+        long bestDifference = Long.MAX_VALUE;
+        for (int x = right; x > right - (right - left) / 100; x--) {
+            long difference = 0;
+            for (int y = 0; y < image.getHeight(); y++) {
+                int a = image.getRGB(left, y);
+                int b = image.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    difference += Math.abs((a >> shift & 0xFF) - (b >> shift & 0xFF));
+                }
+            }
+            if (difference < bestDifference) {
+                bestDifference = difference;
+                end = x - 1;
+            }
+        }
+        return image.getSubimage(left, 0, end - left + 1, image.getHeight());
+    }
+
+    /**
+     * Check whether a column of an image can be seen through everywhere.
+     * @param image The image
+     * @param x X coordinate of the column
+     * @return Whether no pixel of the column is fully opaque
+     */
+    private static boolean isTranslucentColumn(BufferedImage image, int x) {
+        for (int y = 0; y < image.getHeight(); y++) {
+            if (image.getRGB(x, y) >>> 24 == 255) {
+                return false;
+            }
         }
+        return true;
     }
 
     /**
-     * Load an image.
+     * Get an image from the AssetCache, decoding it if it isn't loaded yet.
      * @param name Image file path + name
      * @return The image
      */
-    private Image loadImage(String name) {
-        URL resource = getClass().getClassLoader().getResource(name);
-        assert resource != null;
-        return new ImageIcon(resource).getImage();
+    private static BufferedImage loadImage(String name) {
+        AssetCache cache = AssetCache.getInstance();
+        // Only the background differs between levels, the sprites are shared by every game
+        return name.startsWith("bg-") ? cache.acquireImage(name) : cache.getImage(name);
     }
 }
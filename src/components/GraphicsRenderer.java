@@ -0,0 +1,321 @@
+package components;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Renderer drawing on the Graphics of a (Swing) component.
+ *
+ * <p>Scaling an image while drawing it is slow, and the game draws every sprite at the same few
+ * sizes every frame. So a copy of every sprite is kept per size (and direction) it's drawn at,
+ * in the format of the screen, and drawing a sprite is a plain copy of that. Images drawn at a
+ * different height every time (lightning) only get a copy per width. Repeated images (the
+ * background layers) are scaled once per frame height and cut into tiles in video memory.
+ */
+public class GraphicsRenderer implements Renderer {
+    private static final int SIZES = 4; // Scaled copies kept per image
+    private static final int TILE_WIDTH = 256; // Width of a tile of a repeated image
+
+    private Graphics2D graphics; // Graphics of the current frame
+    private int width; // Width of the current frame
+    private int height; // Height of the current frame
+
+    private final Map<Image, ScaledImage[]> scaledImages = new IdentityHashMap<>(); // Per image
+    private long draws = 0; // Amount of scaled images drawn, to know which is used least recently
+    private final Map<Image, Strip> strips = new IdentityHashMap<>(); // Repeated images
+
+    /**
+     * Set the Graphics to draw the next frame on, the frame size is taken from its clip bounds.
+     * @param graphics The Graphics to draw on
+     */
+    public void setGraphics(Graphics2D graphics) {
+        this.graphics = graphics;
+
+        Rectangle bounds = graphics.getClipBounds();
+        width = bounds.width;
+        height = bounds.height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void drawImage(Image image, int x, int y, int width, int height) {
+        if (width == 0 || height <= 0) {
+            graphics.drawImage(image, x, y, width, height, null);
+            return;
+        }
+
+        // A negative width draws the image mirrored, to the left of x
+        boolean mirrored = width < 0;
+        int scaledWidth = Math.abs(width);
+        Image scaled = getScaledImage(image, scaledWidth, height, mirrored);
+        graphics.drawImage(scaled, mirrored ? x - scaledWidth : x, y, null);
+    }
+
+    @Override
+    public void drawStretched(Image image, int x, int y, int width, int height) {
+        if (width == 0 || height <= 0) {
+            graphics.drawImage(image, x, y, width, height, null);
+            return;
+        }
+
+        // A copy per height would replace the copies all the time, so the copy has the height of
+        // the frame (the most it's drawn at) and is only scaled vertically while drawing
+        boolean mirrored = width < 0;
+        int scaledWidth = Math.abs(width);
+        Image scaled = getScaledImage(image, scaledWidth, this.height, mirrored);
+        graphics.drawImage(scaled, mirrored ? x - scaledWidth : x, y, scaledWidth, height, null);
+    }
+
+    @Override
+    public void drawRepeated(Image image, int height, double scroll) {
+        Strip strip = strips.get(image);
+        if (strip == null || strip.height != height) {
+            if (strip != null) {
+                strip.flush();
+            }
+            strip = new Strip(image, height);
+            strips.put(image, strip);
+        }
+
+        // Draw the tiles which are visible, from the first (partly) visible repetition
+        GraphicsConfiguration configuration = graphics.getDeviceConfiguration();
+        int start = -(int) (scroll % strip.width);
+        for (int x = start; x < width; x += strip.width) {
+            for (int i = 0; i < strip.tiles.length; i++) {
+                int tileX = x + i * TILE_WIDTH;
+                if (tileX + TILE_WIDTH > 0 && tileX < width) {
+                    strip.drawTile(graphics, configuration, i, tileX);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void invalidateImages(Image[] images) {
+        for (Image image : images) {
+            scaledImages.remove(image);
+            Strip strip = strips.remove(image);
+            if (strip != null) {
+                strip.flush();
+            }
+        }
+    }
+
+    /**
+     * Get the copy of an image at a size, creating it when there's none. When all copies of the
+     * image are in use, the least recently drawn one is replaced.
+     * @param image The image
+     * @param width Width of the copy
+     * @param height Height of the copy
+     * @param mirrored Whether the copy is mirrored horizontally
+     * @return The copy
+     */
+    private Image getScaledImage(Image image, int width, int height, boolean mirrored) {
+        ScaledImage[] sizes = scaledImages.get(image);
+        if (sizes == null) {
+            sizes = new ScaledImage[SIZES];
+            scaledImages.put(image, sizes);
+        }
+
+        draws++;
+        int replace = 0;
+        for (int i = 0; i < SIZES; i++) {
+            ScaledImage scaled = sizes[i];
+            if (scaled == null) {
+                replace = i;
+                break;
+            }
+            if (scaled.width == width && scaled.height == height && scaled.mirrored == mirrored) {
+                scaled.lastDrawn = draws;
+                return scaled.image;
+            }
+            if (scaled.lastDrawn < sizes[replace].lastDrawn) {
+                replace = i;
+            }
+        }
+
+        // Scale it once, into an image the screen can draw fast (e.g. from video memory)
+        BufferedImage copy = graphics.getDeviceConfiguration()
+            .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        Graphics2D copyGraphics = copy.createGraphics();
+        copyGraphics.setComposite(AlphaComposite.Src);
+        Object interpolation = graphics.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        if (interpolation != null) {
+            copyGraphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+        if (mirrored) {
+            copyGraphics.drawImage(image, width, 0, -width, height, null);
+        } else {
+            copyGraphics.drawImage(image, 0, 0, width, height, null);
+        }
+        copyGraphics.dispose();
+
+        sizes[replace] = new ScaledImage(copy, width, height, mirrored, draws);
+        return copy;
+    }
+
+    @Override
+    public void drawImage(Image image, int dx1, int dy1, int dx2, int dy2,
+                          int sx1, int sy1, int sx2, int sy2) {
+        graphics.drawImage(image, dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2, null);
+    }
+
+    @Override
+    public void setOpacity(float opacity) {
+        graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+    }
+
+    @Override
+    public void setColor(Color color) {
+        graphics.setColor(color);
+    }
+
+    @Override
+    public void setFont(Font font) {
+        graphics.setFont(font);
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+        graphics.fillRoundRect(x, y, width, height, arcWidth, arcHeight);
+    }
+
+    @Override
+    public void drawString(String text, int x, int y) {
+        graphics.drawString(text, x, y);
+    }
+
+    /**
+     * A copy of an image at the size it's drawn at.
+     */
+    private static class ScaledImage {
+        final Image image; // The copy
+        final int width; // Width of the copy
+        final int height; // Height of the copy
+        final boolean mirrored; // Whether the copy is mirrored horizontally
+        long lastDrawn; // When it was drawn last (see draws)
+
+        /**
+         * Initialize ScaledImage.
+         * @param image The copy
+         * @param width Width of the copy
+         * @param height Height of the copy
+         * @param mirrored Whether the copy is mirrored horizontally
+         * @param lastDrawn When it was drawn last
+         */
+        ScaledImage(Image image, int width, int height, boolean mirrored, long lastDrawn) {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+            this.mirrored = mirrored;
+            this.lastDrawn = lastDrawn;
+        }
+    }
+
+    /**
+     * An image scaled to a height and cut into tiles, to draw it repeatedly. The tiles are
+     * VolatileImages (video memory), which can lose their contents (e.g. when the screen mode
+     * changes), so the scaled image is kept to draw them again.
+     */
+    private static class Strip {
+        final int height; // Height of the scaled image
+        final int width; // Width of the scaled image
+        final BufferedImage scaled; // The scaled image
+        final VolatileImage[] tiles; // Parts of TILE_WIDTH wide, created when first drawn
+
+        /**
+         * Initialize Strip, scaling the image.
+         * @param image The image
+         * @param height Height to scale the image to, keeping its aspect ratio
+         */
+        Strip(Image image, int height) {
+            this.height = height;
+            width = Math.max(1, (int) Math.round(
+                (double) image.getWidth(null) * height / image.getHeight(null)));
+
+            // Scaled with bilinear interpolation, it's done only once
+            scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D graphics = scaled.createGraphics();
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(image, 0, 0, width, height, null);
+            graphics.dispose();
+
+            tiles = new VolatileImage[(width + TILE_WIDTH - 1) / TILE_WIDTH];
+        }
+
+        /**
+         * Draw a tile, restoring it first when it lost its contents.
+         * @param graphics Where to draw the tile on
+         * @param configuration The configuration of the screen
+         * @param index Which tile
+         * @param x X coordinate to draw the tile at
+         */
+        void drawTile(Graphics2D graphics, GraphicsConfiguration configuration, int index, int x) {
+            for (int attempt = 0; attempt < 3; attempt++) {
+                VolatileImage tile = tiles[index];
+                int status = tile == null ? VolatileImage.IMAGE_INCOMPATIBLE
+                    : tile.validate(configuration);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    if (tile != null) {
+                        tile.flush();
+                    }
+                    int tileWidth = Math.min(TILE_WIDTH, width - index * TILE_WIDTH);
+                    tile = configuration.createCompatibleVolatileImage(tileWidth, height,
+                        VolatileImage.TRANSLUCENT);
+                    tiles[index] = tile;
+                    status = VolatileImage.IMAGE_RESTORED;
+                }
+                if (status == VolatileImage.IMAGE_RESTORED) {
+                    Graphics2D tileGraphics = tile.createGraphics();
+                    tileGraphics.setComposite(AlphaComposite.Src);
+                    tileGraphics.drawImage(scaled, -index * TILE_WIDTH, 0, null);
+                    tileGraphics.dispose();
+                }
+
+                graphics.drawImage(tile, x, 0, null);
+                if (!tile.contentsLost()) {
+                    return;
+                }
+            }
+
+            // Video memory keeps failing, draw from the scaled image instead
+            int tileX = index * TILE_WIDTH;
+            int tileWidth = Math.min(TILE_WIDTH, width - tileX);
+            graphics.drawImage(scaled, x, 0, x + tileWidth, height, tileX, 0, tileX + tileWidth,
+                height, null);
+        }
+
+        /**
+         * Free the video memory of the tiles.
+         */
+        void flush() {
+            for (VolatileImage tile : tiles) {
+                if (tile != null) {
+                    tile.flush();
+                }
+            }
+        }
+    }
+}
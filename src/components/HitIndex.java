@@ -0,0 +1,131 @@
+package components;
+
+import java.util.Arrays;
+
+/**
+ * Broadphase for hit detection. All hit detection in the game only has to look at the horizontal
+ * position of objects (they're all standing on the ground, or compared against a single point),
+ * so objects are kept sorted by the left side of their bounds. Looking up which objects might be
+ * hit is then a binary search instead of checking every single object.
+ *
+ * @param <T> Type of the objects in the index
+ */
+public class HitIndex<T> {
+    private Object[] items = new Object[16]; // Objects sorted by the left side of their bounds
+    private double[] lefts = new double[16]; // Left side of the bounds of every object
+    private double[] rights = new double[16]; // Right side of the bounds of every object
+    private int size = 0; // Amount of objects in the index
+    private double maxWidth = 0; // Width of the widest bounds, limits how far to look back
+
+    private Object[] results = new Object[16]; // Objects found by the last query
+
+    /**
+     * Remove all objects from the index.
+     */
+    public void clear() {
+        Arrays.fill(items, 0, size, null);
+        size = 0;
+        maxWidth = 0;
+    }
+
+    /**
+     * Add an object to the index. Objects are usually added from left to right, which makes
+     * this (nearly) constant time.
+     *
+     * @param item The object
+     * @param left Left side of the bounds of the object
+     * @param right Right side of the bounds of the object
+     */
+    public void add(T item, double left, double right) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, size * 2);
+            lefts = Arrays.copyOf(lefts, size * 2);
+            rights = Arrays.copyOf(rights, size * 2);
+        }
+
+        // Find position to keep objects sorted, searching from the end (most likely spot)
+        int position = size;
+        while (position > 0 && lefts[position - 1] > left) {
+            position--;
+        }
+
+        // Move the objects after it one place to the right
+        System.arraycopy(items, position, items, position + 1, size - position);
+        System.arraycopy(lefts, position, lefts, position + 1, size - position);
+        System.arraycopy(rights, position, rights, position + 1, size - position);
+
+        items[position] = item;
+        lefts[position] = left;
+        rights[position] = right;
+        maxWidth = Math.max(maxWidth, right - left);
+        size++;
+    }
+
+    /**
+     * Remove the leftmost objects from the index, e.g. the ones the camera has passed.
+     *
+     * @param count How many objects to remove
+     */
+    public void removeFirst(int count) {
+        System.arraycopy(items, count, items, 0, size - count);
+        System.arraycopy(lefts, count, lefts, 0, size - count);
+        System.arraycopy(rights, count, rights, 0, size - count);
+        Arrays.fill(items, size - count, size, null);
+        size -= count;
+    }
+
+    /**
+     * Find all objects whose bounds overlap with the given range. The found objects can be
+     * fetched using getResult, until the next query.
+     *
+     * @param from Start of the range
+     * @param to End of the range
+     * @return The amount of objects found
+     */
+    public int query(double from, double to) {
+        int found = 0;
+
+        // Objects which start before this can't reach the range, since no object is wider
+        for (int i = firstStartingFrom(from - maxWidth); i < size && lefts[i] <= to; i++) {
+            if (rights[i] >= from) {
+                if (found == results.length) {
+                    results = Arrays.copyOf(results, found * 2);
+                }
+                results[found++] = items[i];
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Get an object found by the last query, ordered from left to right.
+     *
+     * @param index Index of the result
+     * @return The object
+     */
+    @SuppressWarnings("unchecked")
+    public T getResult(int index) {
+        return (T) results[index];
+    }
+
+    /**
+     * Binary search for the first object which starts at or after the given position.
+     *
+     * @param position The position
+     * @return Index of the object (size if there is none)
+     */
+    private int firstStartingFrom(double position) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (lefts[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
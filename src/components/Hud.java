@@ -0,0 +1,276 @@
+package components;
+
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import objects.Effect;
+import objects.EffectType;
+
+/**
+ * Draws the HUD of the game: the score and time left (top left) and the active effects below
+ * it. Laying out text is slow and creates garbage, so nothing is laid out per frame. The
+ * panels with their labels, and the title and description of every effect, are drawn once per
+ * language into cards. The numbers, which change every frame, are copied glyph by glyph from
+ * a strip with the digits.
+ */
+public class Hud {
+    private static final Color PANEL = new Color(0x333333); // Background of the panels
+    private static final float PANEL_OPACITY = 0.7f;
+    private static final Color POSITIVE = new Color(0x00FF00); // Title of a good effect
+    private static final Color NEGATIVE = new Color(0xFF0000); // Title of a bad effect
+    private static final Color DESCRIPTION = new Color(0xFFFFFF); // Description of an effect
+    private static final Color TIMER = new Color(0xCCCCCC); // Time left of an effect
+    private static final String GLYPHS = "0123456789-:."; // Characters in a glyph strip
+
+    private final Font valueFont; // Points and time left
+    private final Font labelFont; // Labels of the points and time left
+    private final Font titleFont; // Title of an effect
+    private final Font descriptionFont; // Description and time left of an effect
+
+    private int language = -1; // Language the cards are drawn in
+    private BufferedImage scoreCard; // Panels and labels of the points and time left
+    private final BufferedImage[] effectCards = new BufferedImage[EffectType.values().length * 2];
+    private GlyphStrip valueGlyphs; // Points and time left
+    private GlyphStrip timerGlyphs; // Time left of an effect
+    private final char[] text = new char[24]; // Characters of a number being drawn
+
+    /**
+     * Initialize Hud.
+     * @param font The font of the game
+     */
+    public Hud(Font font) {
+        valueFont = font.deriveFont(20f);
+        labelFont = font.deriveFont(12f);
+        titleFont = font.deriveFont(14f);
+        descriptionFont = font.deriveFont(10f);
+    }
+
+    /**
+     * Draw the points and the time left of the game.
+     * @param renderer Where to draw on
+     * @param points The points
+     * @param timeLeft Time left in milliseconds
+     */
+    public void drawScore(Renderer renderer, int points, long timeLeft) {
+        prepare();
+
+        renderer.drawImage(scoreCard, 10, 10, scoreCard.getWidth(), scoreCard.getHeight());
+        valueGlyphs.draw(renderer, text, formatNumber(text, 0, points, 1), 20, 45);
+        valueGlyphs.draw(renderer, text, formatTime(text, timeLeft), 190, 45);
+    }
+
+    /**
+     * Draw the effects which are active, below each other.
+     * @param renderer Where to draw on
+     * @param effects All effects, only those which started are drawn
+     * @param gameTime Time the game has been running in milliseconds
+     */
+    public void drawBuffs(Renderer renderer, List<Effect> effects, long gameTime) {
+        prepare();
+
+        // How many effects are already displayed on screen
+        int position = 0;
+        for (int i = 0; i < effects.size(); i++) {
+            Effect effect = effects.get(i);
+            if (effect.start == 0) {
+                continue;
+            }
+
+            int y = 60 + 50 * position;
+            BufferedImage card = getEffectCard(effect.type, effect.positive);
+            renderer.drawImage(card, 10, y, card.getWidth(), card.getHeight());
+
+            long timeLeft = effect.duration - (gameTime - effect.start);
+            timerGlyphs.draw(renderer, text, formatTime(text, timeLeft), 15, y + 40);
+
+            position++;
+        }
+    }
+
+    /**
+     * Create the glyph strips the first time, and throw away the cards when the language
+     * changed.
+     */
+    private void prepare() {
+        if (valueGlyphs == null) {
+            valueGlyphs = new GlyphStrip(valueFont, Color.WHITE);
+            timerGlyphs = new GlyphStrip(descriptionFont, TIMER);
+        }
+
+        if (language != Language.code) {
+            language = Language.code;
+            scoreCard = createScoreCard();
+            for (int i = 0; i < effectCards.length; i++) {
+                effectCards[i] = null;
+            }
+        }
+    }
+
+    /**
+     * Draw the card behind the points and time left.
+     * @return The card, its top left corner goes at (10, 10)
+     */
+    private BufferedImage createScoreCard() {
+        String pointsLabel = Language.getString("points");
+        String timeLabel = Language.getString("time");
+        FontMetrics metrics = getMetrics(labelFont);
+        int width = Math.max(330, 180 + metrics.stringWidth(timeLabel));
+
+        BufferedImage card = new BufferedImage(width, 45, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = card.createGraphics();
+        graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, PANEL_OPACITY));
+        graphics.setColor(PANEL);
+        graphics.fillRoundRect(0, 0, 160, 45, 16, 16);
+        graphics.fillRoundRect(170, 0, 160, 45, 16, 16);
+        graphics.setComposite(AlphaComposite.SrcOver);
+
+        graphics.setColor(Color.WHITE);
+        graphics.setFont(labelFont);
+        graphics.drawString(pointsLabel, 10, 15);
+        graphics.drawString(timeLabel, 180, 15);
+        graphics.dispose();
+        return card;
+    }
+
+    /**
+     * Get the card with the title and description of an effect, drawing it the first time.
+     * @param type Which effect
+     * @param positive Whether the effect is good or bad for the player
+     * @return The card, its top left corner goes 10 pixels from the left of the frame
+     */
+    private BufferedImage getEffectCard(EffectType type, boolean positive) {
+        int index = type.ordinal() * 2 + (positive ? 1 : 0);
+        if (effectCards[index] != null) {
+            return effectCards[index];
+        }
+
+        String[] texts = type.getDescription(positive).split("\n");
+        String title = texts[0];
+        String description = texts.length > 1 ? texts[1] : "";
+        int width = Math.max(280, 5 + Math.max(getMetrics(titleFont).stringWidth(title),
+            getMetrics(descriptionFont).stringWidth(description)));
+
+        BufferedImage card = new BufferedImage(width, 45, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D graphics = card.createGraphics();
+        graphics.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, PANEL_OPACITY));
+        graphics.setColor(PANEL);
+        graphics.fillRoundRect(0, 0, 280, 45, 8, 8);
+        graphics.setComposite(AlphaComposite.SrcOver);
+
+        graphics.setColor(positive ? POSITIVE : NEGATIVE);
+        graphics.setFont(titleFont);
+        graphics.drawString(title, 5, 15);
+        graphics.setColor(DESCRIPTION);
+        graphics.setFont(descriptionFont);
+        graphics.drawString(description, 5, 27);
+        graphics.dispose();
+
+        effectCards[index] = card;
+        return card;
+    }
+
+    /**
+     * Get the metrics of a font, to measure text before drawing it.
+     * @param font The font
+     * @return The metrics
+     */
+    private static FontMetrics getMetrics(Font font) {
+        Graphics2D graphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        FontMetrics metrics = graphics.getFontMetrics(font);
+        graphics.dispose();
+        return metrics;
+    }
+
+    /**
+     * Write a time as minutes, seconds and hundredths (00:00.00).
+     * @param chars Where to write the characters
+     * @param time The time in milliseconds, negative times are written as 0
+     * @return Amount of characters written
+     */
+    private static int formatTime(char[] chars, long time) {
+        time = Math.max(0, time);
+        int length = formatNumber(chars, 0, time / 60000, 2);
+        chars[length++] = ':';
+        length = formatNumber(chars, length, time % 60000 / 1000, 2);
+        chars[length++] = '.';
+        return formatNumber(chars, length, time % 1000 / 10, 2);
+    }
+
+    /**
+     * Write a number in decimal.
+     * @param chars Where to write the characters
+     * @param offset Where to start writing
+     * @param number The number
+     * @param digits Minimal amount of digits, padded with zeros
+     * @return Index after the last character written
+     */
+    private static int formatNumber(char[] chars, int offset, long number, int digits) {
+        if (number < 0) {
+            chars[offset++] = '-';
+            number = -number;
+        }
+
+        int length = 0;
+        for (long rest = number; rest > 0 || length < digits; rest /= 10) {
+            length++;
+        }
+        for (int i = offset + length - 1; i >= offset; i--) {
+            chars[i] = (char) ('0' + number % 10);
+            number /= 10;
+        }
+        return offset + length;
+    }
+
+    /**
+     * The glyphs of the characters in numbers, drawn once next to each other in a font and
+     * color. The font is monospace, so every glyph takes the same width.
+     */
+    private static class GlyphStrip {
+        final BufferedImage image; // The glyphs
+        final int advance; // Width of a glyph
+        final int ascent; // Height of the glyphs above the baseline
+
+        /**
+         * Initialize GlyphStrip, drawing the glyphs.
+         * @param font The font
+         * @param color The color
+         */
+        GlyphStrip(Font font, Color color) {
+            FontMetrics metrics = getMetrics(font);
+            advance = metrics.charWidth('0');
+            ascent = metrics.getAscent();
+
+            image = new BufferedImage(advance * GLYPHS.length(), ascent + metrics.getDescent(),
+                BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(color);
+            graphics.setFont(font);
+            for (int i = 0; i < GLYPHS.length(); i++) {
+                graphics.drawString(String.valueOf(GLYPHS.charAt(i)), i * advance, ascent);
+            }
+            graphics.dispose();
+        }
+
+        /**
+         * Draw characters.
+         * @param renderer Where to draw on
+         * @param chars The characters, which have to be in GLYPHS
+         * @param length Amount of characters
+         * @param x X coordinate of the start of the baseline
+         * @param y Y coordinate of the baseline
+         */
+        void draw(Renderer renderer, char[] chars, int length, int x, int y) {
+            int top = y - ascent;
+            int bottom = top + image.getHeight();
+            for (int i = 0; i < length; i++) {
+                int glyph = GLYPHS.indexOf(chars[i]) * advance;
+                renderer.drawImage(image, x + i * advance, top, x + (i + 1) * advance, bottom,
+                    glyph, 0, glyph + advance, image.getHeight());
+            }
+        }
+    }
+}
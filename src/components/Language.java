@@ -47,10 +47,15 @@ public class Language {
             case "settings" -> result = "Settings";
             case "exit" -> result = "Exit";
             case "gameOver" -> result = "Game over";
+            case "loading" -> result = "Loading...";
             case "language" -> result = "Language";
             case "save" -> result = "Save";
+            case "rendering" -> result = "Rendering";
+            case "renderingActive" -> result = "Active (smoothest)";
+            case "renderingSwing" -> result = "Swing (most compatible)";
             case "close" -> result = "Close";
             case "score" -> result = "Score";
+            case "placed" -> result = "You placed #%,d (top %d%%)";
             case "submit" -> result = "Submit";
             case "nickname" -> result = "Nickname";
             case "points" -> result = "Points";
@@ -128,10 +133,15 @@ public class Language {
             case "settings" -> result = "Instellingen";
             case "exit" -> result = "Stoppen";
             case "gameOver" -> result = "Je hebt verloren";
+            case "loading" -> result = "Laden...";
             case "language" -> result = "Taal";
             case "save" -> result = "Opslaan";
+            case "rendering" -> result = "Weergave";
+            case "renderingActive" -> result = "Actief (vloeiendst)";
+            case "renderingSwing" -> result = "Swing (meest compatibel)";
             case "close" -> result = "Sluiten";
             case "score" -> result = "Score";
+            case "placed" -> result = "Je staat op #%,d (top %d%%)";
             case "submit" -> result = "Indienen";
             case "nickname" -> result = "Spelersnaam";
             case "points" -> result = "Punten";
@@ -208,10 +218,15 @@ public class Language {
             case "settings" -> result = "Ustawienia";
             case "exit" -> result = "Wyjście";
             case "gameOver" -> result = "Koniec gry";
+            case "loading" -> result = "Ładowanie...";
             case "language" -> result = "Język";
             case "save" -> result = "Zapisz";
+            case "rendering" -> result = "Renderowanie";
+            case "renderingActive" -> result = "Aktywne (najpłynniejsze)";
+            case "renderingSwing" -> result = "Swing (najbardziej zgodne)";
             case "close" -> result = "Zamknij";
             case "score" -> result = "Wynik";
+            case "placed" -> result = "Miejsce #%,d (top %d%%)";
             case "submit" -> result = "Zapisz wynik";
             case "nickname" -> result = "Nazwa gracza";
             case "points" -> result = "Punkty";
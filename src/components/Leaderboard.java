@@ -1,17 +1,69 @@
 package components;
 
-import java.io.BufferedWriter;
+import events.LeaderboardEvent;
 import java.io.File;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
- * The Leaderboard.
+ * The Leaderboard. The files (see LeaderboardStore) are read once (when they're first needed)
+ * into memory, where every level keeps all its entries in order in a ScoreTree and,
+ * separately, its best entries. So the best entries of every level are available right away,
+ * the rank of a score and any page of the leaderboard are found in O(log n), and adding an
+ * entry only appends a record to the log. A background thread compacts the log into the
+ * snapshot now and then, so the log stays short.
+ *
+ * <p>Entries added at the same time (by several threads) are written together, with a single
+ * write and wait for the disk (a group commit). The files are locked for other processes while
+ * writing or compacting, and the entries other processes added are read at that moment, so
+ * they show up at the latest with the next compaction.
+ *
+ * <p>Reading and writing the files can take a while (e.g. a slow disk or a home directory on
+ * the network), so windows don't call the methods directly but submit them to the I/O thread
+ * of the leaderboard, which runs them one by one in the order they were submitted. So entries
+ * of the game are added one at a time, and a group commit only has several entries when
+ * threads call addToLeaderboard directly (e.g. benchmarks.LeaderboardStress); one entry per
+ * game over doesn't need more.
  */
 public class Leaderboard {
-    private final String leaderboardFilePath;
+    public static final String[] LEVELS = {"eindhoven", "warsaw", "newyork"}; // Id is the index
+    public static final int TOP = 10; // Best entries kept in order per level
+    private static final long COMPACT_DELAY = 10; // Seconds before the first compaction
+    private static final long COMPACT_INTERVAL = 60; // Seconds between compactions
+    private static final long CLOSE_TIMEOUT = 10; // Seconds to wait for submitted tasks
+
+    private static Leaderboard instance; // The leaderboard, shared by all windows
+
+    private final LeaderboardStore store; // The files
+    private final ExecutorService io; // Runs the submitted tasks
+    private Map<String, LevelEntries> levels; // Entries per level, null until the files are read
+    private ScheduledExecutorService compactor; // Compacts the log, started after reading
+    private final Object files = new Object(); // Held while using the store after reading
+    private Batch batch = new Batch(); // Entries waiting to be written
+    private boolean writing = false; // Whether a thread is writing a batch
+
+    /**
+     * Get the leaderboard, creating it the first time.
+     */
+    public static synchronized Leaderboard getInstance() {
+        if (instance == null) {
+            instance = new Leaderboard();
+
+            // Finish writing submitted entries when the game is closed
+            Runtime.getRuntime().addShutdownHook(new Thread(instance::close,
+                "Leaderboard shutdown"));
+        }
+        return instance;
+    }
 
     /**
      * Initialize Leaderboard.
@@ -40,91 +92,388 @@ public class Leaderboard {
             System.exit(1);
         }
 
-        this.leaderboardFilePath = configPath + "/leaderboard.csv";
-        if (!checkIfFileExists(leaderboardFilePath)) {
-            System.out.println("ERROR, LEADERBOARD FILE IS A DIRECTORY!");
-            System.exit(1);
-        }
+        store = new LeaderboardStore(new File(configPath));
+        io = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Leaderboard I/O");
+            thread.setDaemon(true); // Closing waits for it, see getInstance
+            return thread;
+        });
     }
 
     /**
-     * Add an entry to the leaderboard.
+     * Run a task with the leaderboard on its I/O thread, after the tasks submitted before. E.g.
+     * {@code submit(leaderboard -> leaderboard.getTop(level, 3))}. The future completes on that
+     * thread, so use SwingUtilities.invokeLater to show the result.
+     *
+     * @param task The task
+     * @param <T> Type of the result
+     * @return The result of the task, or what it threw
+     */
+    public <T> CompletableFuture<T> submit(Function<Leaderboard, T> task) {
+        return CompletableFuture.supplyAsync(() -> task.apply(this), io);
+    }
+
+    /**
+     * Add an entry to the leaderboard, and wait until it's on disk. When another thread is
+     * writing already, the entry is written after that together with the other entries which
+     * were added in the meantime.
      *
      * @param entry The entry to add
      */
     public void addToLeaderboard(LeaderboardEntry entry) {
-        try {
-            // Open csv file
-            BufferedWriter writer = new BufferedWriter(new FileWriter(leaderboardFilePath, true));
-            // Add entry in csv style (comma seperated) and add a new line at the end
-            writer.append(entry.toString()).append("\n");
-            // Save the file
-            writer.close();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+        LeaderboardEvent event = LeaderboardEvent.TYPE.isEnabled() ? new LeaderboardEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        Batch mine;
+        boolean writer = false;
+        synchronized (this) {
+            // Fail now, or the writer would use the store while another thread reads it again
+            load();
+            if (levels == null) {
+                throw new RuntimeException(new IOException("The leaderboard isn't loaded"));
+            }
+            if (!levels.containsKey(entry.getLevel())) {
+                throw new IllegalArgumentException("Unknown level: " + entry.getLevel());
+            }
+            LeaderboardStore.checkEntry(entry); // Before it can make the whole batch fail
+            mine = batch;
+            mine.entries.add(entry);
+            while (writing && !mine.done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            if (!mine.done) { // Nobody is writing, so this thread writes the batch
+                writing = true;
+                writer = true;
+                batch = new Batch();
+            }
+        }
+        if (writer) {
+            write(mine);
+        }
+        if (mine.failure != null) {
+            throw new RuntimeException(mine.failure);
+        }
+
+        if (event != null && event.shouldCommit()) {
+            event.operation = "add";
+            event.level = entry.getLevel();
+            event.bytes = mine.bytes;
+            event.entries = mine.entries.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Get the best entries of a level.
+     *
+     * @param level The level
+     * @param count How many entries (at most TOP)
+     * @return The entries from high to low score, fewer when the level has fewer entries
+     */
+    public synchronized List<LeaderboardEntry> getTop(String level, int count) {
+        if (count > TOP) {
+            throw new IllegalArgumentException("Only the best " + TOP + " entries are kept");
+        }
+
+        LevelEntries entries = load().get(level);
+        List<LeaderboardEntry> top = new ArrayList<>();
+        for (int i = 0; entries != null && i < Math.min(count, entries.topSize); i++) {
+            top.add(entries.top[i]);
         }
+        return top;
     }
 
     /**
-     * Fetch the values from the leaderboard.
+     * Fetch all entries of a level.
      *
      * @param levelToGet the level
-     * @return The leaderboard
+     * @return The leaderboard, from high to low score
      */
-    public ArrayList<LeaderboardEntry> getLeaderboard(String levelToGet) {
-        ArrayList<LeaderboardEntry> entries = new ArrayList<>();
+    public synchronized ArrayList<LeaderboardEntry> getLeaderboard(String levelToGet) {
+        LevelEntries entries = load().get(levelToGet);
+        if (entries == null) {
+            return new ArrayList<>();
+        }
+
+        ArrayList<LeaderboardEntry> sorted = new ArrayList<>(entries.ranked.size());
+        entries.ranked.forEach(sorted::add);
+        return sorted;
+    }
+
+    /**
+     * Get the place a score would get on the leaderboard of a level when it's added now, so
+     * after the entries with the same score.
+     *
+     * @param level The level
+     * @param score The score
+     * @return The place, 1 is the best
+     */
+    public synchronized int rankOf(String level, int score) {
+        LevelEntries entries = load().get(level);
+        return 1 + (entries == null ? 0 : entries.ranked.countAtLeast(score));
+    }
+
+    /**
+     * Get how high a score would be on the leaderboard of a level when it's added now, as the
+     * percentage of the entries (including the new one) which are at its place or above.
+     *
+     * @param level The level
+     * @param score The score
+     * @return The percentage, e.g. 3 for the top 3% and 100 for the last place
+     */
+    public synchronized double percentileOf(String level, int score) {
+        LevelEntries entries = load().get(level);
+        int size = entries == null ? 0 : entries.ranked.size();
+        return 100.0 * rankOf(level, score) / (size + 1);
+    }
+
+    /**
+     * Get a page of the leaderboard of a level.
+     *
+     * @param level The level
+     * @param offset How many entries to skip, 0 starts at the best
+     * @param limit How many entries at most
+     * @return The entries from high to low score
+     */
+    public synchronized List<LeaderboardEntry> page(String level, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit can't be negative");
+        }
 
+        List<LeaderboardEntry> page = new ArrayList<>(Math.min(limit, 100));
+        LevelEntries entries = load().get(level);
+        if (entries != null) {
+            entries.ranked.page(offset, limit, page);
+        }
+        return page;
+    }
+
+    /**
+     * Finish the submitted tasks, stop compacting and close the files.
+     */
+    public void close() {
+        io.shutdown();
         try {
-            Scanner sc = new Scanner(new File(leaderboardFilePath)); // Load the file
-            sc.useDelimiter("\n"); // Split lines by newline
+            if (!io.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS)) {
+                System.out.println("WARNING, GAVE UP WAITING FOR THE LEADERBOARD TO BE WRITTEN!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-            while (sc.hasNext()) {
-                String entryCSV = sc.next(); // Entry
-                String[] values = entryCSV.split(","); // Values of the entry
+        synchronized (this) {
+            if (compactor != null) {
+                compactor.shutdownNow();
+            }
+        }
+        synchronized (files) {
+            try {
+                store.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
 
-                String level = values[0];
-                if (!levelToGet.equals(level)) { // If level of the entry is not level to display
-                    continue;
-                }
+    /**
+     * Move the entries in the log into a new snapshot now, instead of waiting for the
+     * compactor. Also reads the entries other processes added.
+     */
+    public void compact() {
+        LeaderboardEvent event = LeaderboardEvent.TYPE.isEnabled() ? new LeaderboardEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
 
-                String score = values[1];
-                String nickname = values[2];
+        synchronized (this) {
+            load();
+            if (levels == null) { // Couldn't be read, the next call tries again
+                return;
+            }
+        }
+        long bytes = 0;
+        synchronized (files) {
+            Changes changes = new Changes();
+            try {
+                store.lock(changes);
+                Map<String, List<LeaderboardEntry>> sorted = new LinkedHashMap<>();
+                synchronized (this) {
+                    apply(changes);
+                    if (store.getLogRecords() > 0) {
+                        for (LevelEntries entries : levels.values()) {
+                            List<LeaderboardEntry> list = new ArrayList<>(entries.ranked.size());
+                            entries.ranked.forEach(list::add);
+                            sorted.put(entries.name, list);
+                        }
+                    }
+                }
 
-                LeaderboardEntry entry = new LeaderboardEntry(level, score, nickname); // Format
-                entries.add(entry);
+                // Other processes wait for the lock meanwhile, threads of this one can still
+                // get entries from memory
+                if (!sorted.isEmpty()) {
+                    File snapshot = store.writeSnapshot(sorted);
+                    bytes = snapshot.length();
+                    store.finishCompaction(snapshot);
+                }
+            } catch (IOException e) {
+                System.out.println("WARNING, COULDN'T COMPACT THE LEADERBOARD: " + e.getMessage());
+                return;
+            } finally {
+                unlock();
             }
-            sc.close(); // Close file
+        }
+
+        if (bytes > 0 && event != null && event.shouldCommit()) {
+            event.operation = "compact";
+            event.bytes = bytes;
+            event.entries = countEntries();
+            event.commit();
+        }
+    }
+
+    /**
+     * Read the files into memory the first time, and start compacting.
+     *
+     * @return The entries per level
+     */
+    private Map<String, LevelEntries> load() {
+        if (levels != null) {
+            return levels;
+        }
+
+        LeaderboardEvent event = LeaderboardEvent.TYPE.isEnabled() ? new LeaderboardEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+
+        levels = new LinkedHashMap<>();
+        for (String level : LEVELS) {
+            levels.put(level, new LevelEntries(level));
+        }
+        Changes changes = new Changes();
+        long bytes;
+        try {
+            bytes = store.load(changes);
+        } catch (IOException e) {
+            System.out.println("ERROR, COULDN'T READ THE LEADERBOARD: " + e.getMessage());
+            Map<String, LevelEntries> empty = levels;
+            levels = null; // Try again the next time
+            return empty;
+        }
+        apply(changes);
 
-            // Sort the leaderboard entries from high to low
-            entries.sort((one, two) ->
-                Integer.parseInt(two.getScore()) - Integer.parseInt(one.getScore()));
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Leaderboard compactor");
+            thread.setDaemon(true); // Don't keep the game running, the log has everything
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        compactor.scheduleWithFixedDelay(this::compact, COMPACT_DELAY, COMPACT_INTERVAL,
+            TimeUnit.SECONDS);
 
-            return entries;
-        } catch (Exception e) {
-            return entries;
+        if (event != null && event.shouldCommit()) {
+            event.operation = "load";
+            event.bytes = bytes;
+            event.entries = countEntries();
+            event.commit();
         }
+        return levels;
     }
 
     /**
-     * Makes sure that the file exist and is not a directory.
+     * Write a batch of entries, with the entries other processes added in the meantime.
      *
-     * @param filePath The path of the file to check
-     * @return Whether file exists (true) or is a directory (false)
+     * @param batch The batch, which no other thread adds entries to anymore
      */
-    private boolean checkIfFileExists(String filePath) {
+    private void write(Batch batch) {
+        Changes changes = new Changes();
+        synchronized (files) {
+            try {
+                store.lock(changes);
+                batch.bytes = store.append(batch.entries);
+            } catch (IOException | RuntimeException e) {
+                batch.failure = e;
+            } finally {
+                unlock();
+            }
+
+            // Still holding files, so a compaction doesn't miss the entries in memory
+            synchronized (this) {
+                try {
+                    apply(changes);
+                    if (batch.failure == null) {
+                        batch.entries.forEach(this::index);
+                    }
+                } catch (RuntimeException e) {
+                    batch.failure = e;
+                } finally {
+                    // Always, or the threads waiting for this batch would wait forever
+                    batch.done = true;
+                    writing = false;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Let other processes use the files again.
+     */
+    private void unlock() {
         try {
-            File leaderboardFile = new File(filePath);
-            if (!leaderboardFile.exists()) { // Check if file exists
-                FileOutputStream s = new FileOutputStream(filePath); // Create file if not exists
-                s.close();
-                return checkIfFileExists(filePath); // Make sure the file is created
-            } else {
-                // It should be a file, and not directory
-                return !leaderboardFile.isDirectory();
+            store.unlock();
+        } catch (IOException e) {
+            System.out.println("WARNING, COULDN'T UNLOCK THE LEADERBOARD: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Change the entries in memory like they were changed on disk by other processes.
+     *
+     * @param changes The changes read while locking the files
+     */
+    private void apply(Changes changes) {
+        if (levels == null) { // Not read, so nothing to change
+            return;
+        }
+        if (changes.cleared) {
+            for (String level : LEVELS) {
+                levels.put(level, new LevelEntries(level));
             }
-        } catch (Exception e) {
-            throw new RuntimeException(e);
         }
+        changes.entries.forEach(this::index);
+    }
+
+    /**
+     * Count the entries of all levels.
+     *
+     * @return The amount of entries
+     */
+    private synchronized int countEntries() {
+        int count = 0;
+        for (LevelEntries entries : levels.values()) {
+            count += entries.ranked.size();
+        }
+        return count;
+    }
+
+    /**
+     * Add an entry to the entries of its level in memory.
+     *
+     * @param entry The entry
+     */
+    private void index(LeaderboardEntry entry) {
+        LevelEntries entries = levels.get(entry.getLevel());
+        if (entries == null) {
+            throw new IllegalArgumentException("Unknown level: " + entry.getLevel());
+        }
+        entries.add(entry);
     }
 
     /**
@@ -143,4 +492,77 @@ public class Leaderboard {
             return !directoryFile.isFile();
         }
     }
+
+    /**
+     * Entries which are written together.
+     */
+    private static class Batch {
+        final List<LeaderboardEntry> entries = new ArrayList<>();
+        boolean done = false; // Whether it's written, or failed
+        int bytes = 0; // Bytes written
+        Exception failure; // Why it couldn't be written, null when it was
+    }
+
+    /**
+     * The changes other processes made to the files, collected while the files are locked and
+     * applied to the entries in memory afterwards.
+     */
+    private static class Changes implements LeaderboardStore.Changes {
+        final List<LeaderboardEntry> entries = new ArrayList<>(); // Added entries
+        boolean cleared = false; // Whether all entries were read again
+
+        @Override
+        public void clear() {
+            entries.clear();
+            cleared = true;
+        }
+
+        @Override
+        public void add(LeaderboardEntry entry) {
+            entries.add(entry);
+        }
+    }
+
+    /**
+     * The entries of a level: all of them, and the best TOP entries separately. Both are from
+     * high to low score, and a new entry only gets in above entries with a lower score, so on
+     * equal scores the earlier entry stays first.
+     */
+    private static class LevelEntries {
+        final String name; // Name of the level
+        final ScoreTree ranked = new ScoreTree(); // All entries
+        final LeaderboardEntry[] top = new LeaderboardEntry[TOP]; // Best entries
+        int topSize = 0; // Amount of entries in top
+
+        /**
+         * Initialize LevelEntries.
+         *
+         * @param name Name of the level
+         */
+        LevelEntries(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Add an entry.
+         *
+         * @param entry The entry
+         */
+        void add(LeaderboardEntry entry) {
+            ranked.add(entry);
+
+            // Find its place among the best, and shift the lower ones down
+            int position = topSize;
+            while (position > 0 && top[position - 1].getScore() < entry.getScore()) {
+                position--;
+            }
+            if (position == TOP) {
+                return;
+            }
+            System.arraycopy(top, position, top, position + 1,
+                Math.min(topSize, TOP - 1) - position);
+            top[position] = entry;
+            topSize = Math.min(topSize + 1, TOP);
+        }
+    }
 }
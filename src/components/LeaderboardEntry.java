@@ -5,19 +5,32 @@ package components;
  */
 public class LeaderboardEntry {
     private final String level; // Levels are strings like "eindhoven", "warsaw" and "newyork"
-    private final String score;
+    private final int score;
     private final String nickname;
+    private final long time; // When it was reached, in ms since 1970 (0 if unknown)
+
+    /**
+     * Initialize LeaderboardEntry, reached just now.
+     * @param level The level of the entry
+     * @param score The score reached
+     * @param nickname The nickname of the player
+     */
+    public LeaderboardEntry(String level, int score, String nickname) {
+        this(level, score, nickname, System.currentTimeMillis());
+    }
 
     /**
      * Initialize LeaderboardEntry.
      * @param level The level of the entry
      * @param score The score reached
      * @param nickname The nickname of the player
+     * @param time When the score was reached, in ms since 1970 (0 if unknown)
      */
-    public LeaderboardEntry(String level, String score, String nickname) {
+    public LeaderboardEntry(String level, int score, String nickname, long time) {
         this.level = level;
         this.score = score;
         this.nickname = nickname;
+        this.time = time;
     }
 
     /**
@@ -30,7 +43,7 @@ public class LeaderboardEntry {
     /**
      * Get the entry's score.
      */
-    public String getScore() {
+    public int getScore() {
         return this.score;
     }
 
@@ -41,6 +54,13 @@ public class LeaderboardEntry {
         return this.nickname;
     }
 
+    /**
+     * Get when the entry's score was reached, in ms since 1970 (0 if unknown).
+     */
+    public long getTime() {
+        return this.time;
+    }
+
     /**
      * Correct formatting of the entry.
      */
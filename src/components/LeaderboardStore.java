@@ -0,0 +1,684 @@
+package components;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The leaderboard on disk, in two binary files: a snapshot with all entries sorted per level,
+ * and a log of the entries added since. Adding an entry appends a record to the log, and now and
+ * then a compaction writes a new snapshot and empties the log, so loading only reads the
+ * snapshot and a short log. Not thread-safe, Leaderboard takes care of that.
+ *
+ * <p>Several processes (e.g. game instances of kiosks) can share the files. They're only used
+ * while holding a lock on leaderboard.lock, which doesn't get replaced like the others. It
+ * contains the epoch of the files, so taking the lock only has to read that to know whether
+ * another process compacted the files in the meantime; then all entries are read again, and
+ * otherwise only the records other processes appended.
+ *
+ * <p>Both files start with a header (big endian): magic, version and epoch. A compaction writes
+ * the snapshot with the next epoch, so a log of an older epoch is already in the snapshot and is
+ * ignored. Log records are the length of the payload, a CRC32 of the payload and the payload:
+ * level id, score, time (ms since 1970) and the UTF-8 nickname. A record which was cut off or
+ * damaged (e.g. a crash while writing) ends the log. The snapshot has the same payloads, per
+ * level after the amount of entries, with a CRC32 of everything at the end.
+ */
+public class LeaderboardStore {
+    private static final String CSV = "leaderboard.csv"; // Old text leaderboard, migrated
+    private static final String LOG = "leaderboard.log";
+    private static final String SNAPSHOT = "leaderboard.snapshot";
+    private static final String LOCK = "leaderboard.lock";
+    private static final String TEMPORARY = ".tmp"; // Suffix of files being written
+    private static final int LOG_MAGIC = 0x43524C47; // "CRLG"
+    private static final int SNAPSHOT_MAGIC = 0x43524C53; // "CRLS"
+    private static final int VERSION = 1;
+    private static final int HEADER = 16; // Bytes of the header of both files
+    private static final int FIXED_PAYLOAD = 13; // Bytes of a payload without the nickname
+    private static final int MAX_PAYLOAD = 1024; // Longer payloads can only be damage
+
+    private final File directory; // Where the files are
+    private FileChannel lockFile; // Locked while the files are used, open after load
+    private FileLock lock; // The lock, null when it's not held
+    private FileChannel log; // The log, open for appending after load
+    private long epoch = 0; // Epoch of the snapshot and the log
+    private long logRecords = 0; // Records in the log
+    private long logLength = 0; // Bytes of the log which are read
+
+    /**
+     * Gets the entries read when the files are locked.
+     */
+    public interface Changes {
+        /**
+         * Forget all entries, because all of them are read again.
+         */
+        void clear();
+
+        /**
+         * Add an entry which was read.
+         *
+         * @param entry The entry
+         */
+        void add(LeaderboardEntry entry);
+    }
+
+    /**
+     * A file which isn't a leaderboard file (of this version), or is damaged.
+     */
+    private static class DamagedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Initialize DamagedException.
+         *
+         * @param message What's wrong with the file
+         */
+        DamagedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Initialize LeaderboardStore.
+     *
+     * @param directory Where the files are
+     */
+    public LeaderboardStore(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Read all entries, migrating the CSV leaderboard the first time, and open the log. Damaged
+     * files are moved aside (with .damaged after the name), starting an empty leaderboard. When
+     * it throws, nothing is open, so it can be tried again.
+     *
+     * @param changes Gets every entry, per level from high to low score and then in the order
+     *      they were added since the last compaction, and is cleared when damaged files were
+     *      moved aside
+     * @return Amount of bytes read
+     * @throws IOException When the files can't be read or written
+     */
+    public long load(Changes changes) throws IOException {
+        lockFile = FileChannel.open(new File(directory, LOCK).toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            lock = lockFile.lock();
+            File csv = new File(directory, CSV);
+            recover();
+            long bytes;
+            if (!new File(directory, SNAPSHOT).exists() && !new File(directory, LOG).exists()
+                    && csv.isFile()) {
+                migrate(csv, changes::add);
+                bytes = csv.length();
+            } else {
+                try {
+                    bytes = read(changes::add);
+                } catch (DamagedException e) {
+                    System.out.println("WARNING, THE LEADERBOARD IS DAMAGED (" + e.getMessage()
+                        + "), STARTING A NEW ONE!");
+                    changes.clear();
+                    if (log != null) {
+                        log.close();
+                    }
+                    for (String name : new String[] {SNAPSHOT, LOG}) {
+                        File file = new File(directory, name);
+                        if (file.exists()) {
+                            move(file, new File(directory, name + ".damaged"));
+                        }
+                    }
+                    bytes = read(changes::add);
+                }
+            }
+            writeLockEpoch(epoch);
+            unlock();
+            return bytes;
+        } catch (IOException | RuntimeException e) {
+            // Closing the lock file releases the lock too
+            if (log != null) {
+                log.close();
+            }
+            lockFile.close();
+            log = null;
+            lockFile = null;
+            lock = null;
+            throw e;
+        }
+    }
+
+    /**
+     * Lock the files for this process, waiting until other processes are done with them, and
+     * read what they changed. Has to be followed by unlock, also when it throws.
+     *
+     * @param changes Gets the entries other processes appended, or is cleared and gets all
+     *      entries again when another process compacted the files
+     * @throws IOException When the files can't be locked or read
+     */
+    public void lock(Changes changes) throws IOException {
+        if (lockFile == null) {
+            throw new IOException("The leaderboard isn't loaded");
+        }
+        lock = lockFile.lock();
+        if (readLockEpoch() == epoch) {
+            readLog(changes::add);
+            return;
+        }
+
+        // Finish a compaction of a process which crashed, so the epoch on disk is right
+        recover();
+        if (readEpoch(new File(directory, LOG), LOG_MAGIC) != epoch) {
+            changes.clear();
+            log.close();
+            read(changes::add);
+        } else {
+            readLog(changes::add);
+        }
+        writeLockEpoch(epoch);
+    }
+
+    /**
+     * Let other processes use the files again.
+     *
+     * @throws IOException When the lock can't be released
+     */
+    public void unlock() throws IOException {
+        if (lock != null) {
+            lock.release();
+            lock = null;
+        }
+    }
+
+    /**
+     * Append entries to the log in one write, and wait until they're on disk. Only when the
+     * files are locked.
+     *
+     * @param entries The entries
+     * @return Amount of bytes written
+     * @throws IOException When the log can't be written
+     */
+    public int append(List<LeaderboardEntry> entries) throws IOException {
+        if (lock == null) {
+            throw new IOException("The leaderboard isn't locked");
+        }
+        ByteBuffer[] records = new ByteBuffer[entries.size()];
+        int length = 0;
+        for (int i = 0; i < records.length; i++) {
+            records[i] = createRecord(entries.get(i));
+            length += records[i].remaining();
+        }
+
+        // A crash while writing leaves a damaged record at the end, which the next read drops
+        log.position(logLength);
+        while (records[records.length - 1].hasRemaining()) {
+            log.write(records);
+        }
+        log.force(false);
+        logRecords += records.length;
+        logLength += length;
+        return length;
+    }
+
+    /**
+     * Get the amount of records in the log, which a compaction would move to the snapshot.
+     */
+    public long getLogRecords() {
+        return logRecords;
+    }
+
+    /**
+     * First step of a compaction: write a new snapshot next to the current one. Only when the
+     * files are locked, so no entries are appended in the meantime.
+     *
+     * @param levels All entries per level, from high to low score
+     * @return The new snapshot, to pass to finishCompaction
+     * @throws IOException When the snapshot can't be written
+     */
+    public File writeSnapshot(Map<String, List<LeaderboardEntry>> levels) throws IOException {
+        File snapshot = new File(directory, SNAPSHOT + TEMPORARY);
+        try (FileChannel channel = FileChannel.open(snapshot.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32 crc = new CRC32();
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(epoch + 1);
+            buffer.putInt(levels.size());
+            for (Map.Entry<String, List<LeaderboardEntry>> level : levels.entrySet()) {
+                if (buffer.remaining() < 5) {
+                    write(channel, buffer, crc);
+                }
+                buffer.put((byte) getLevelId(level.getKey()));
+                buffer.putInt(level.getValue().size());
+                for (LeaderboardEntry entry : level.getValue()) {
+                    byte[] nickname = entry.getNickname().getBytes(StandardCharsets.UTF_8);
+                    if (buffer.remaining() < 2 + FIXED_PAYLOAD + nickname.length) {
+                        write(channel, buffer, crc);
+                    }
+                    buffer.putShort((short) (FIXED_PAYLOAD + nickname.length));
+                    putPayload(buffer, entry, nickname);
+                }
+            }
+            write(channel, buffer, crc);
+            buffer.putInt((int) crc.getValue());
+            write(channel, buffer, null);
+            channel.force(true);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Last step of a compaction: replace the snapshot with the new one, and start an empty log.
+     * Only when the files are locked.
+     *
+     * @param snapshot The new snapshot from writeSnapshot
+     * @throws IOException When the files can't be written
+     */
+    public void finishCompaction(File snapshot) throws IOException {
+        // First, so other processes read everything again also when this process crashes now
+        writeLockEpoch(epoch + 1);
+
+        File newLog = new File(directory, LOG + TEMPORARY);
+        try (FileChannel channel = FileChannel.open(newLog.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(createHeader(LOG_MAGIC, epoch + 1));
+            channel.force(true);
+        }
+
+        // Once the snapshot is in place the old log is ignored (older epoch), and when the new
+        // log doesn't make it in place, recover finishes the move
+        move(snapshot, new File(directory, SNAPSHOT));
+        log.close();
+        move(newLog, new File(directory, LOG));
+        epoch++;
+        logRecords = 0;
+        logLength = HEADER;
+        log = FileChannel.open(new File(directory, LOG).toPath(), StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Close the files.
+     *
+     * @throws IOException When the files can't be closed
+     */
+    public void close() throws IOException {
+        if (log != null) {
+            log.close();
+        }
+        if (lockFile != null) {
+            lockFile.close(); // Also releases the lock
+        }
+    }
+
+    /**
+     * Check that an entry can be stored.
+     *
+     * @param entry The entry
+     * @throws IllegalArgumentException When its nickname is too long
+     */
+    public static void checkEntry(LeaderboardEntry entry) {
+        if (FIXED_PAYLOAD + entry.getNickname().getBytes(StandardCharsets.UTF_8).length
+                > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Nickname is too long: " + entry.getNickname());
+        }
+    }
+
+    /**
+     * Get the id of a level, as stored in the files.
+     *
+     * @param level The level
+     * @return Its index in Leaderboard.LEVELS
+     */
+    public static int getLevelId(String level) {
+        for (int i = 0; i < Leaderboard.LEVELS.length; i++) {
+            if (Leaderboard.LEVELS[i].equals(level)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown level: " + level);
+    }
+
+    /**
+     * Clean up after a compaction which was interrupted (e.g. the game was closed).
+     *
+     * @throws IOException When the files can't be moved or deleted
+     */
+    private void recover() throws IOException {
+        File snapshot = new File(directory, SNAPSHOT);
+        File logFile = new File(directory, LOG);
+
+        // The new snapshot wasn't finished, the current snapshot and log are still valid
+        Files.deleteIfExists(new File(directory, SNAPSHOT + TEMPORARY).toPath());
+
+        // The new snapshot is in place, but the new log isn't yet
+        File newLog = new File(directory, LOG + TEMPORARY);
+        if (newLog.exists()) {
+            if (snapshot.exists() && readEpoch(newLog, LOG_MAGIC) == readEpoch(snapshot,
+                    SNAPSHOT_MAGIC)) {
+                move(newLog, logFile);
+            } else {
+                Files.delete(newLog.toPath());
+            }
+        }
+    }
+
+    /**
+     * Move the entries of the old CSV leaderboard into a snapshot, keeping the CSV file as
+     * leaderboard.csv.old.
+     *
+     * @param csv The CSV leaderboard
+     * @param entries Gets every entry
+     * @throws IOException When the files can't be read or written
+     */
+    private void migrate(File csv, Consumer<LeaderboardEntry> entries) throws IOException {
+        Map<String, List<LeaderboardEntry>> levels = new LinkedHashMap<>();
+        for (String level : Leaderboard.LEVELS) {
+            levels.put(level, new ArrayList<>());
+        }
+
+        // Values of an entry are level,score,nickname
+        int invalid = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(csv))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",", 3); // Commas in a nickname stay in it now
+                List<LeaderboardEntry> level = levels.get(values[0]);
+                if (level == null || values.length < 3) {
+                    invalid += line.isEmpty() ? 0 : 1;
+                    continue;
+                }
+                try {
+                    level.add(new LeaderboardEntry(values[0], Integer.parseInt(values[1]),
+                        values[2], 0)); // The time wasn't stored
+                } catch (NumberFormatException e) {
+                    invalid++;
+                }
+            }
+        }
+        if (invalid > 0) {
+            System.out.println("WARNING, SKIPPED " + invalid + " INVALID LEADERBOARD LINES!");
+        }
+
+        for (List<LeaderboardEntry> level : levels.values()) {
+            level.sort((one, two) -> Integer.compare(two.getScore(), one.getScore()));
+            level.forEach(entries);
+        }
+        move(writeSnapshot(levels), new File(directory, SNAPSHOT));
+        epoch++;
+
+        File logFile = new File(directory, LOG);
+        log = FileChannel.open(logFile.toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log.write(createHeader(LOG_MAGIC, epoch));
+        log.force(true);
+        logRecords = 0;
+        logLength = HEADER;
+        move(csv, new File(directory, CSV + ".old"));
+    }
+
+    /**
+     * Read the entries in the snapshot and the log, and open the log.
+     *
+     * @param entries Gets every entry
+     * @return Amount of bytes read
+     * @throws IOException When the files can't be read or written
+     */
+    private long read(Consumer<LeaderboardEntry> entries) throws IOException {
+        epoch = 0;
+        logRecords = 0;
+        logLength = 0;
+
+        File snapshot = new File(directory, SNAPSHOT);
+        long bytes = snapshot.exists() ? readSnapshot(snapshot, entries) : 0;
+        log = FileChannel.open(new File(directory, LOG).toPath(), StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return bytes + readLog(entries);
+    }
+
+    /**
+     * Read the entries in the snapshot.
+     *
+     * @param snapshot The snapshot
+     * @param entries Gets every entry
+     * @return Amount of bytes read
+     * @throws IOException When the snapshot can't be read or is damaged
+     */
+    private long readSnapshot(File snapshot, Consumer<LeaderboardEntry> entries)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot.toPath()));
+        if (buffer.limit() < HEADER + 8 || buffer.getInt(0) != SNAPSHOT_MAGIC
+                || buffer.getInt(4) != VERSION) {
+            throw new DamagedException(SNAPSHOT + " isn't a leaderboard snapshot of this version");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.limit() - 4);
+        if (buffer.getInt(buffer.limit() - 4) != (int) crc.getValue()) {
+            throw new DamagedException(SNAPSHOT + " is damaged");
+        }
+        epoch = buffer.position(8).getLong();
+
+        int levels = buffer.getInt();
+        for (int i = 0; i < levels; i++) {
+            String level = Leaderboard.LEVELS[buffer.get()];
+            int count = buffer.getInt();
+            for (int j = 0; j < count; j++) {
+                int length = buffer.getShort();
+                entries.accept(getPayload(buffer, level, length));
+            }
+        }
+        return buffer.limit();
+    }
+
+    /**
+     * Read the entries in the log which aren't read yet, cutting off a damaged end.
+     *
+     * @param entries Gets every entry
+     * @return Amount of bytes read
+     * @throws IOException When the log can't be read or written
+     */
+    private long readLog(Consumer<LeaderboardEntry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (log.size() - logLength));
+        log.read(buffer, logLength);
+        buffer.flip();
+
+        if (logLength == 0) {
+            if (buffer.limit() >= HEADER && (buffer.getInt(0) != LOG_MAGIC
+                    || buffer.getInt(4) != VERSION)) {
+                throw new DamagedException(LOG + " isn't a leaderboard log of this version");
+            }
+
+            // A new log, or one the snapshot already has (a compaction was interrupted)
+            if (buffer.limit() < HEADER || buffer.getLong(8) < epoch) {
+                log.truncate(0);
+                log.write(createHeader(LOG_MAGIC, epoch), 0);
+                log.force(true);
+                logLength = HEADER;
+                return buffer.limit();
+            }
+            epoch = buffer.getLong(8);
+            buffer.position(HEADER);
+        }
+
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt(buffer.position());
+            int checksum = buffer.getInt(buffer.position() + 4);
+            if (length < FIXED_PAYLOAD || length > MAX_PAYLOAD
+                    || buffer.remaining() < 8 + length) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position() + 8, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            int id = buffer.get(buffer.position() + 8);
+            if (id < 0 || id >= Leaderboard.LEVELS.length) {
+                break;
+            }
+            buffer.position(buffer.position() + 8);
+            String level = Leaderboard.LEVELS[id];
+            entries.accept(getPayload(buffer, level, length));
+            logRecords++;
+        }
+        logLength += buffer.position();
+
+        // Records are only written while holding the lock, so this is from a crash
+        if (buffer.hasRemaining()) {
+            System.out.println("WARNING, DROPPED " + buffer.remaining()
+                + " DAMAGED BYTES AT THE END OF THE LEADERBOARD LOG!");
+            log.truncate(logLength);
+            log.force(true);
+        }
+        return buffer.limit();
+    }
+
+    /**
+     * Read the epoch in the lock file.
+     *
+     * @return The epoch, -1 when there isn't one yet
+     * @throws IOException When the lock file can't be read
+     */
+    private long readLockEpoch() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        lockFile.read(buffer, 0);
+        return buffer.hasRemaining() ? -1 : buffer.getLong(0);
+    }
+
+    /**
+     * Write the epoch in the lock file.
+     *
+     * @param epoch The epoch
+     * @throws IOException When the lock file can't be written
+     */
+    private void writeLockEpoch(long epoch) throws IOException {
+        lockFile.write(ByteBuffer.allocate(8).putLong(epoch).flip(), 0);
+    }
+
+    /**
+     * Create a log record of an entry.
+     *
+     * @param entry The entry
+     * @return The record, ready to be written
+     */
+    private static ByteBuffer createRecord(LeaderboardEntry entry) {
+        checkEntry(entry);
+        byte[] nickname = entry.getNickname().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(8 + FIXED_PAYLOAD + nickname.length);
+        record.position(8);
+        putPayload(record, entry, nickname);
+
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 8, record.position() - 8);
+        record.putInt(0, record.position() - 8).putInt(4, (int) crc.getValue());
+        return record.flip();
+    }
+
+    /**
+     * Put the payload of an entry in a buffer.
+     *
+     * @param buffer The buffer
+     * @param entry The entry
+     * @param nickname The nickname of the entry in UTF-8
+     */
+    private static void putPayload(ByteBuffer buffer, LeaderboardEntry entry, byte[] nickname) {
+        buffer.put((byte) getLevelId(entry.getLevel()));
+        buffer.putInt(entry.getScore());
+        buffer.putLong(entry.getTime());
+        buffer.put(nickname);
+    }
+
+    /**
+     * Get the entry of a payload from a buffer.
+     *
+     * @param buffer The buffer, positioned at the payload
+     * @param level The level of the entry (already looked up from the id)
+     * @param length Length of the payload
+     * @return The entry
+     */
+    private static LeaderboardEntry getPayload(ByteBuffer buffer, String level, int length) {
+        buffer.get(); // Level id
+        int score = buffer.getInt();
+        long time = buffer.getLong();
+        String nickname = new String(buffer.array(), buffer.position(), length - FIXED_PAYLOAD,
+            StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length - FIXED_PAYLOAD);
+        return new LeaderboardEntry(level, score, nickname, time);
+    }
+
+    /**
+     * Create the header of a file.
+     *
+     * @param magic Which file
+     * @param epoch The epoch of the file
+     * @return The header, ready to be written
+     */
+    private static ByteBuffer createHeader(int magic, long epoch) {
+        return ByteBuffer.allocate(HEADER).putInt(magic).putInt(VERSION).putLong(epoch).flip();
+    }
+
+    /**
+     * Read the epoch in the header of a file.
+     *
+     * @param file The file
+     * @param magic Which file it should be
+     * @return The epoch, -1 when it's not that file
+     * @throws IOException When the file can't be read
+     */
+    private static long readEpoch(File file, int magic) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            channel.read(header, 0);
+            return header.limit() == header.position() && header.getInt(0) == magic
+                ? header.getLong(8) : -1;
+        }
+    }
+
+    /**
+     * Write a buffer to a channel, and empty it.
+     *
+     * @param channel The channel
+     * @param buffer The buffer
+     * @param crc Checksum to add the written bytes to, or null
+     * @throws IOException When the channel can't be written
+     */
+    private static void write(FileChannel channel, ByteBuffer buffer, CRC32 crc)
+            throws IOException {
+        buffer.flip();
+        if (crc != null) {
+            crc.update(buffer.array(), 0, buffer.limit());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Replace a file with another one, at once where the file system supports it.
+     *
+     * @param source The new file
+     * @param target The file to replace
+     * @throws IOException When the file can't be moved
+     */
+    private static void move(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package components;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * AudioSink playing the audio on the speakers, using a Java Sound SourceDataLine.
+ */
+public class LineAudioSink implements AudioSink {
+    private final SourceDataLine line;
+
+    /**
+     * Initialize LineAudioSink, opening and starting the line.
+     *
+     * @param bufferSize How many bytes the line buffers, the latency of the audio
+     * @throws LineUnavailableException When there's no audio output
+     */
+    public LineAudioSink(int bufferSize) throws LineUnavailableException {
+        AudioFormat format = new AudioFormat(AudioMixer.SAMPLE_RATE, 16, 2, true, false);
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+        } catch (IllegalArgumentException e) { // No line supporting the format at all
+            throw new LineUnavailableException(e.getMessage());
+        }
+        line.open(format, bufferSize);
+        line.start();
+    }
+
+    @Override
+    public void write(byte[] bytes, int length) {
+        line.write(bytes, 0, length);
+    }
+}
@@ -0,0 +1,256 @@
+package components;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Plays the background music (`music/<track>.wav`, e.g. "menu" or a level) in a loop. A track
+ * is never loaded as a whole: a low priority thread decodes it bit by bit into a small ring
+ * buffer, which the AudioMixer takes the samples from. So a track of any length only needs a
+ * few hundred KB. When the track changes, the old one fades out while the new one fades in.
+ * Tracks which don't exist are silent.
+ */
+public class MusicPlayer {
+    private static final int RING_SIZE = 1 << 16; // Samples buffered per track (128 KB, 0.74s)
+    private static final int FADE = AudioMixer.SAMPLE_RATE * 2; // Frames of a crossfade (2s)
+    private static final float VOLUME = 0.5f; // Music shouldn't drown out the sound effects
+    private static final long IDLE = 20_000_000L; // Wait (ns) when all buffers are full
+
+    private volatile String requestedTrack; // Track the game wants to hear (can be null)
+    private volatile Track current; // Track playing (fading in), null when silent
+    private volatile Track fading; // Previous track, fading out
+    private final Thread thread; // Decodes the tracks
+
+    /**
+     * Initialize MusicPlayer and start decoding.
+     */
+    public MusicPlayer() {
+        thread = new Thread(this::decode, "Music");
+        thread.setDaemon(true); // Don't keep the game running
+        thread.setPriority(Thread.MIN_PRIORITY); // Has plenty of time thanks to the buffer
+        thread.start();
+    }
+
+    /**
+     * Play a track, crossfading from the current one. Playing the same track again does
+     * nothing.
+     *
+     * @param track Name of the track (e.g. "menu" or a level), null for silence
+     */
+    public void play(String track) {
+        requestedTrack = track;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Add the music to mixed samples, called by the mixer thread.
+     *
+     * @param mixed Sum of the samples of all voices (left, right, left, ...)
+     */
+    void mixInto(int[] mixed) {
+        Track current = this.current;
+        if (current != null) {
+            current.mixInto(mixed, false);
+        }
+        Track fading = this.fading;
+        if (fading != null) {
+            fading.mixInto(mixed, true);
+        }
+    }
+
+    /**
+     * Keep the buffers of the tracks filled and switch tracks, runs on the music thread forever.
+     */
+    private void decode() {
+        String playing = null; // Track which is current
+        byte[] buffer = new byte[4096]; // Decoded bytes, before they go in the ring buffer
+
+        while (true) {
+            // Switch to another track
+            String track = requestedTrack;
+            if (!Objects.equals(track, playing)) {
+                playing = track;
+                if (fading != null) {
+                    fading.close(); // Switched again during a crossfade, cut it short
+                }
+                if (current != null) {
+                    current.fadeOutStart = current.mixedFrames.get();
+                }
+                fading = current;
+                current = track == null ? null : Track.open(track);
+            }
+
+            // The previous track has faded out
+            Track fading = this.fading;
+            if (fading != null && fading.mixedFrames.get() - fading.fadeOutStart >= FADE) {
+                this.fading = null;
+                fading.close();
+            }
+
+            // Fill the buffers, and rest when they're full
+            boolean decoded = false;
+            if (current != null) {
+                decoded = current.fill(buffer);
+            }
+            if (this.fading != null) {
+                decoded |= this.fading.fill(buffer);
+            }
+            if (!decoded) {
+                LockSupport.parkNanos(IDLE);
+            }
+        }
+    }
+
+    /**
+     * A track being played, with the ring buffer between the music thread (writing) and the
+     * mixer thread (reading). Neither needs a lock, since each only moves its own position.
+     */
+    private static class Track {
+        private final String name; // Name of the track
+        private AudioInputStream stream; // Decoded samples of the track file
+        private final short[] ring = new short[RING_SIZE]; // Samples (left, right, left, ...)
+        private final AtomicLong writePosition = new AtomicLong(); // Samples written (music)
+        private final AtomicLong readPosition = new AtomicLong(); // Samples read (mixer)
+        private final AtomicLong mixedFrames = new AtomicLong(); // Frames mixed, for fading
+        private volatile long fadeOutStart; // Mixed frames when fading out started
+        private int leftover = -1; // Byte of a sample split over two reads, -1 if none
+
+        /**
+         * Initialize Track.
+         *
+         * @param name Name of the track
+         * @param stream Decoded samples of the track file
+         */
+        private Track(String name, AudioInputStream stream) {
+            this.name = name;
+            this.stream = stream;
+        }
+
+        /**
+         * Open a track.
+         *
+         * @param name Name of the track
+         * @return The track, or null when it doesn't exist (no music)
+         */
+        static Track open(String name) {
+            AudioInputStream stream = openStream(name);
+            return stream == null ? null : new Track(name, stream);
+        }
+
+        /**
+         * Open the track file, decoding it to 16 bit stereo at the sample rate of the mixer.
+         *
+         * @param name Name of the track
+         * @return The decoded samples, or null when the track doesn't exist or can't be played
+         */
+        private static AudioInputStream openStream(String name) {
+            InputStream resource = MusicPlayer.class.getClassLoader()
+                .getResourceAsStream("music/" + name + ".wav");
+            if (resource == null) {
+                return null;
+            }
+
+            try {
+                AudioInputStream source = AudioSystem.getAudioInputStream(
+                    new BufferedInputStream(resource));
+                AudioFormat format = new AudioFormat(AudioMixer.SAMPLE_RATE, 16, 2, true, false);
+                if (source.getFormat().matches(format)) {
+                    return source;
+                }
+                return AudioSystem.getAudioInputStream(format, source);
+            } catch (IOException | UnsupportedAudioFileException | IllegalArgumentException e) {
+                System.out.println("WARNING, CAN'T PLAY MUSIC " + name + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * Decode samples into the free part of the ring buffer, starting the track over at
+         * its end.
+         *
+         * @param buffer Buffer to decode into
+         * @return Whether anything was decoded
+         */
+        boolean fill(byte[] buffer) {
+            long free = RING_SIZE - (writePosition.get() - readPosition.get());
+            if (free < buffer.length / 2 || stream == null) {
+                return false;
+            }
+
+            try {
+                int length = stream.read(buffer, 0, buffer.length);
+                if (length < 0) {
+                    // End of the track, loop
+                    stream.close();
+                    stream = openStream(name);
+                    leftover = -1;
+                    return stream != null;
+                }
+
+                long position = writePosition.get();
+                for (int i = 0; i < length; i++) {
+                    int value = buffer[i] & 0xFF;
+                    if (leftover == -1) {
+                        leftover = value; // Low byte, wait for the high byte
+                    } else {
+                        ring[(int) position++ & (RING_SIZE - 1)] = (short) (leftover | value << 8);
+                        leftover = -1;
+                    }
+                }
+                writePosition.lazySet(position); // Publishes the samples to the mixer thread
+                return true;
+            } catch (IOException e) {
+                // Drop the track (it stays silent) instead of ending the music thread
+                System.out.println("WARNING, CAN'T PLAY MUSIC " + name + ": " + e.getMessage());
+                close();
+                stream = null;
+                return false;
+            }
+        }
+
+        /**
+         * Add samples from the ring buffer to mixed samples, called by the mixer thread. When
+         * the music thread couldn't keep up, the missing part stays silent.
+         *
+         * @param mixed Sum of the samples of all voices (left, right, left, ...)
+         * @param fadingOut Whether the track is fading out (instead of fading in)
+         */
+        void mixInto(int[] mixed, boolean fadingOut) {
+            long frames = mixedFrames.get();
+            float fade = fadingOut
+                ? 1 - (float) (frames - fadeOutStart) / FADE
+                : (float) frames / FADE;
+            float gain = VOLUME * Math.max(0, Math.min(1, fade));
+
+            long position = readPosition.get();
+            // Whole frames only, so left and right don't swap after the music thread fell behind
+            int available = (int) Math.min(mixed.length, writePosition.get() - position) & ~1;
+            for (int i = 0; i < available; i++) {
+                mixed[i] += (int) (ring[(int) position++ & (RING_SIZE - 1)] * gain);
+            }
+            readPosition.lazySet(position); // Frees the samples for the music thread
+            mixedFrames.lazySet(frames + mixed.length / 2);
+        }
+
+        /**
+         * Stop decoding the track.
+         */
+        void close() {
+            try {
+                if (stream != null) {
+                    stream.close();
+                }
+            } catch (IOException e) {
+                // Runs on the music thread, and the track isn't played anymore anyway
+            }
+        }
+    }
+}
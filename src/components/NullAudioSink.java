@@ -0,0 +1,27 @@
+package components;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * AudioSink throwing the audio away, but just as fast as a real audio output would play it.
+ * Used to run the audio on a machine without sound, e.g. to test it.
+ */
+public class NullAudioSink implements AudioSink {
+    private long start = 0; // When the first samples were written (System.nanoTime)
+    private long frames = 0; // Amount of frames written
+
+    @Override
+    public void write(byte[] bytes, int length) {
+        if (start == 0) {
+            start = System.nanoTime();
+        }
+        frames += length / 4;
+
+        // Wait until the written samples would have been played
+        long playedAt = start + frames * 1_000_000_000L / AudioMixer.SAMPLE_RATE;
+        long wait = playedAt - System.nanoTime();
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package components;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+
+/**
+ * Renderer which doesn't draw anything, used to run a game without a display
+ * (for example automated playthroughs and benchmarks).
+ */
+public class NullRenderer implements Renderer {
+    private final int width; // Width of the (imaginary) frame
+    private final int height; // Height of the (imaginary) frame
+
+    /**
+     * Initialize NullRenderer.
+     * @param width Width of the (imaginary) frame
+     * @param height Height of the (imaginary) frame
+     */
+    public NullRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public void drawImage(Image image, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void drawStretched(Image image, int x, int y, int width, int height) {
+    }
+
+    @Override
+    public void drawRepeated(Image image, int height, double scroll) {
+    }
+
+    @Override
+    public void invalidateImages(Image[] images) {
+    }
+
+    @Override
+    public void drawImage(Image image, int dx1, int dy1, int dx2, int dy2,
+                          int sx1, int sy1, int sx2, int sy2) {
+    }
+
+    @Override
+    public void setOpacity(float opacity) {
+    }
+
+    @Override
+    public void setColor(Color color) {
+    }
+
+    @Override
+    public void setFont(Font font) {
+    }
+
+    @Override
+    public void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight) {
+    }
+
+    @Override
+    public void drawString(String text, int x, int y) {
+    }
+}
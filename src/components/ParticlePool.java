@@ -0,0 +1,97 @@
+package components;
+
+import objects.Particle;
+
+/**
+ * Emitter and storage for one kind of particle (e.g. coins). All particles of a pool live equally
+ * long, so they disappear in the same order as they're emitted. That makes it possible to keep
+ * them in a ring: new particles are added at the end, expired ones removed from the start, and
+ * the living particles are always one dense range. The particle objects are created once and
+ * recycled, so emitting particles doesn't create any garbage.
+ */
+public class ParticlePool {
+    private final Particle[] particles; // Ring of (recycled) particle objects
+    private final int mask; // Capacity - 1, to wrap indexes around the ring
+    private final int lifetime; // For how many 60Hz steps a particle is alive
+    private int first = 0; // Index in the ring of the oldest living particle
+    private int size = 0; // Amount of living particles
+
+    /**
+     * Initialize ParticlePool.
+     * @param capacity Maximum amount of living particles, a power of two. When more particles
+     *                 are emitted, the oldest ones are recycled early.
+     * @param lifetime For how many 60Hz steps a particle is alive
+     */
+    public ParticlePool(int capacity, int lifetime) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+
+        this.particles = new Particle[capacity];
+        for (int i = 0; i < capacity; i++) {
+            particles[i] = new Particle();
+        }
+        this.mask = capacity - 1;
+        this.lifetime = lifetime;
+    }
+
+    /**
+     * Emit a new particle.
+     * @param x X position of the particle
+     * @param y Y position of the particle
+     * @return The particle, to set the remaining properties
+     */
+    public Particle emit(double x, double y) {
+        if (size == particles.length) { // Full, recycle the oldest particle
+            first = (first + 1) & mask;
+            size--;
+        }
+
+        Particle particle = particles[(first + size) & mask];
+        size++;
+
+        particle.x = x;
+        particle.y = y;
+        particle.lastY = y;
+        particle.speedY = 0;
+        particle.height = 0;
+        particle.state = 0;
+        particle.positive = false;
+        return particle;
+    }
+
+    /**
+     * Move and age all particles and remove the ones which expired.
+     * @param stepScale How much of a 60Hz step a single update is
+     */
+    public void update(double stepScale) {
+        for (int i = 0; i < size; i++) {
+            Particle particle = particles[(first + i) & mask];
+            particle.lastY = particle.y;
+            particle.y += particle.speedY * stepScale;
+            particle.state++;
+        }
+
+        // The oldest particles are at the start of the ring
+        while (size > 0 && (int) (particles[first].state * stepScale) >= lifetime) {
+            first = (first + 1) & mask;
+            size--;
+        }
+    }
+
+    /**
+     * Get the amount of living particles.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a living particle.
+     * @param index Index of the particle, 0 is the oldest
+     * @return The particle
+     */
+    public Particle get(int index) {
+        return particles[(first + index) & mask];
+    }
+}
@@ -0,0 +1,109 @@
+package components;
+
+import java.util.Arrays;
+
+/**
+ * All falling raindrops of a game, stored as parallel arrays instead of an object per raindrop.
+ * Moving all raindrops is a single loop without branches or object lookups, which the JIT
+ * compiler can turn into SIMD instructions. Drops are removed by swapping the last drop into
+ * their place, so the order of the drops isn't kept. Splashes are particles (see ParticlePool).
+ */
+public class RaindropStore {
+    // Properties of the raindrops, public since GameEngine reads and updates these directly
+    public double[] x; // Position X of raindrop
+    public double[] y; // Position Y of raindrop
+    public double[] lastX; // Position X at the previous tick, used to interpolate rendering
+    public double[] lastY; // Position Y at the previous tick, used to interpolate rendering
+    public double[] speed; // Falling speed of raindrop
+    public byte[] quality; // -1 -> acid, 0 -> normal, 1 -> bigger water drop
+
+    private int size = 0; // Amount of raindrops
+
+    /**
+     * Initialize RaindropStore.
+     */
+    public RaindropStore() {
+        int capacity = 256;
+        x = new double[capacity];
+        y = new double[capacity];
+        lastX = new double[capacity];
+        lastY = new double[capacity];
+        speed = new double[capacity];
+        quality = new byte[capacity];
+    }
+
+    /**
+     * Get the amount of raindrops.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add a raindrop.
+     *
+     * @param x Position X of raindrop
+     * @param y Position Y of raindrop
+     * @param speed Falling speed of raindrop
+     * @param quality -1 -> acid, 0 -> normal, 1 -> bigger water drop
+     */
+    public void add(double x, double y, double speed, int quality) {
+        if (size == this.x.length) {
+            grow();
+        }
+
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.lastX[i] = x;
+        this.lastY[i] = y;
+        this.speed[i] = speed;
+        this.quality[i] = (byte) quality;
+    }
+
+    /**
+     * Remove a raindrop, by moving the last raindrop in its place. So when going through the
+     * raindrops from the last to the first one, every drop is still seen once.
+     *
+     * @param i Index of the raindrop
+     */
+    public void remove(int i) {
+        size--;
+        x[i] = x[size];
+        y[i] = y[size];
+        lastX[i] = lastX[size];
+        lastY[i] = lastY[size];
+        speed[i] = speed[size];
+        quality[i] = quality[size];
+    }
+
+    /**
+     * Move all raindrops.
+     *
+     * @param fall How far a raindrop falls per unit of speed
+     * @param drift How far raindrops move to the left (the wind, map movement is up to the camera)
+     */
+    public void fall(double fall, double drift) {
+        System.arraycopy(x, 0, lastX, 0, size);
+        System.arraycopy(y, 0, lastY, 0, size);
+        for (int i = 0; i < size; i++) {
+            y[i] += speed[i] * fall;
+        }
+        for (int i = 0; i < size; i++) {
+            x[i] -= drift;
+        }
+    }
+
+    /**
+     * Double the capacity of the arrays.
+     */
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        lastX = Arrays.copyOf(lastX, capacity);
+        lastY = Arrays.copyOf(lastY, capacity);
+        speed = Arrays.copyOf(speed, capacity);
+        quality = Arrays.copyOf(quality, capacity);
+    }
+}
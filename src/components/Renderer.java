@@ -0,0 +1,109 @@
+package components;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Image;
+
+/**
+ * Everything GameEngine needs to draw a frame. Keeping the engine behind this interface
+ * makes it possible to run a game without any display (see NullRenderer).
+ */
+public interface Renderer {
+    /**
+     * Get the width of the area which is drawn on.
+     */
+    int getWidth();
+
+    /**
+     * Get the height of the area which is drawn on.
+     */
+    int getHeight();
+
+    /**
+     * Draw (and scale) an image, a negative width draws the image mirrored.
+     * @param image The image to draw
+     * @param x X coordinate of the top left corner
+     * @param y Y coordinate of the top left corner
+     * @param width Width to draw the image with
+     * @param height Height to draw the image with
+     */
+    void drawImage(Image image, int x, int y, int width, int height);
+
+    /**
+     * Draw (and scale) an image which is drawn at a different height nearly every time (e.g.
+     * lightning), a negative width draws the image mirrored.
+     * @param image The image to draw
+     * @param x X coordinate of the top left corner
+     * @param y Y coordinate of the top left corner
+     * @param width Width to draw the image with
+     * @param height Height to draw the image with
+     */
+    void drawStretched(Image image, int x, int y, int width, int height);
+
+    /**
+     * Draw an image repeated horizontally over the whole width, like an endless strip.
+     * @param image The image to draw
+     * @param height Height to draw the image with (keeping its aspect ratio)
+     * @param scroll How far the strip is scrolled to the left, in pixels
+     */
+    void drawRepeated(Image image, int height, double scroll);
+
+    /**
+     * Forget anything kept for drawing images at a certain size, because they won't be drawn at
+     * that size anymore (e.g. an effect changed the size of the cloud).
+     * @param images The images
+     */
+    void invalidateImages(Image[] images);
+
+    /**
+     * Draw (and scale) part of an image into the given area.
+     * @param image The image to draw
+     * @param dx1 X coordinate of the first corner of the destination
+     * @param dy1 Y coordinate of the first corner of the destination
+     * @param dx2 X coordinate of the second corner of the destination
+     * @param dy2 Y coordinate of the second corner of the destination
+     * @param sx1 X coordinate of the first corner of the source
+     * @param sy1 Y coordinate of the first corner of the source
+     * @param sx2 X coordinate of the second corner of the source
+     * @param sy2 Y coordinate of the second corner of the source
+     */
+    void drawImage(Image image, int dx1, int dy1, int dx2, int dy2,
+                   int sx1, int sy1, int sx2, int sy2);
+
+    /**
+     * Set the opacity of everything drawn afterwards.
+     * @param opacity The opacity (0 is invisible, 1 is fully visible)
+     */
+    void setOpacity(float opacity);
+
+    /**
+     * Set the color of shapes and text drawn afterwards.
+     * @param color The color
+     */
+    void setColor(Color color);
+
+    /**
+     * Set the font of text drawn afterwards.
+     * @param font The font
+     */
+    void setFont(Font font);
+
+    /**
+     * Fill a rectangle with rounded corners.
+     * @param x X coordinate of the top left corner
+     * @param y Y coordinate of the top left corner
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @param arcWidth Horizontal diameter of the corners
+     * @param arcHeight Vertical diameter of the corners
+     */
+    void fillRoundRect(int x, int y, int width, int height, int arcWidth, int arcHeight);
+
+    /**
+     * Draw a text.
+     * @param text The text to draw
+     * @param x X coordinate of the baseline
+     * @param y Y coordinate of the baseline
+     */
+    void drawString(String text, int x, int y);
+}
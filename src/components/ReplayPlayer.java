@@ -0,0 +1,118 @@
+package components;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Plays a game recorded by ReplayRecorder again, without a display and as fast as possible.
+ * The replayed game ends with exactly the same score as the recorded one.
+ */
+public class ReplayPlayer {
+    // Header of the replay
+    public final String level; // The level which was played
+    public final long seed; // Seed of the random generator
+    public final int tickRate; // How many times per second the game was updated
+    public final int frameWidth; // Size of the area the game was played in
+    public final int frameHeight;
+
+    // The recorded input
+    private final int[] ticks; // Number of the update from which on the input is used
+    private final int[] inputs; // The input as GameEngine.INPUT_ bits
+
+    // Trailer of the replay
+    public final int lastTick; // Update of the last recorded input
+    public final int points; // Score the recorded game ended with
+
+    /**
+     * Load a replay.
+     *
+     * @param file The replay file
+     */
+    public ReplayPlayer(File file) {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != ReplayRecorder.MAGIC) {
+                throw new IOException("Not a replay file: " + file);
+            }
+            if (in.readByte() != ReplayRecorder.VERSION) {
+                throw new IOException("Unsupported replay version: " + file);
+            }
+            level = in.readUTF();
+            seed = in.readLong();
+            tickRate = readVarint(in);
+            frameWidth = readVarint(in);
+            frameHeight = readVarint(in);
+
+            int count = readVarint(in);
+            ticks = new int[count];
+            inputs = new int[count];
+            int tick = 0;
+            for (int i = 0; i < count; i++) {
+                int record = readVarint(in);
+                tick += record >>> ReplayRecorder.INPUT_BITS;
+                ticks[i] = tick;
+                inputs[i] = record & ((1 << ReplayRecorder.INPUT_BITS) - 1);
+            }
+
+            lastTick = readVarint(in);
+            int zigzag = readVarint(in);
+            points = zigzag >>> 1 ^ -(zigzag & 1);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Create the game the replay was recorded with, ready to be played (without sound).
+     *
+     * @return The game
+     */
+    public GameEngine createGame() {
+        GameEngine game = new GameEngine(level, tickRate, seed);
+        game.muted = true;
+        game.setFrameSize(frameWidth, frameHeight);
+        return game;
+    }
+
+    /**
+     * Play the recorded input on a game created by createGame, until the game has ended.
+     *
+     * @param game The game
+     * @return The score the game ended with
+     */
+    public int play(GameEngine game) {
+        int next = 0; // Next record to use
+        for (int tick = 0; !game.isEnded(); tick++) {
+            while (next < ticks.length && ticks[next] == tick) {
+                game.setInput(inputs[next++]);
+            }
+            game.step();
+        }
+        return game.getPoints();
+    }
+
+    /**
+     * Read a number written by ReplayRecorder.writeVarint.
+     *
+     * @param in Where to read from
+     * @return The number
+     */
+    private static int readVarint(InputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IOException("Unexpected end of replay file");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Invalid number in replay file");
+    }
+}
@@ -0,0 +1,105 @@
+package components;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Records the input of a game, to play it again later using ReplayPlayer. Since a game only
+ * depends on its level, seed and input, that's enough to reproduce it exactly.
+ *
+ * <p>The input only changes every now and then, so only changes are recorded: the amount of
+ * updates since the previous change and the new input, packed together in a varint (7 bits per
+ * byte). A whole game fits in a few KB this way.
+ */
+public class ReplayRecorder {
+    public static final int MAGIC = 0x43525250; // "CRRP", at the start of every replay file
+    public static final int VERSION = 1; // Version of the file format
+    public static final int INPUT_BITS = 6; // Amount of bits used by the input (GameEngine.INPUT_)
+
+    private final GameEngine game; // The game being recorded
+    private final ByteArrayOutputStream records = new ByteArrayOutputStream(); // Encoded records
+    private int count = 0; // Amount of records
+    private int lastTick = 0; // Update of the previous record
+    private int lastInput = 0; // Input of the previous record
+
+    /**
+     * Initialize ReplayRecorder. Set it as the game's recorder to start recording.
+     *
+     * @param game The game to record
+     */
+    public ReplayRecorder(GameEngine game) {
+        this.game = game;
+    }
+
+    /**
+     * Record the input of an update, called by GameEngine before every update.
+     *
+     * @param tick Number of the update
+     * @param input The input as GameEngine.INPUT_ bits
+     */
+    void record(int tick, int input) {
+        // Lightning only lasts a single update, so it's always a change
+        if (count > 0 && input == lastInput && (input & GameEngine.INPUT_LIGHTNING) == 0) {
+            return;
+        }
+
+        writeVarint(records, (tick - lastTick) << INPUT_BITS | input);
+        count++;
+        lastTick = tick;
+        lastInput = input;
+    }
+
+    /**
+     * Save the recording, together with the final score to check the replay against.
+     *
+     * @param file The file to save the recording to
+     */
+    public void save(File file) {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file)))) {
+            // Header, everything needed to start the same game
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeUTF(game.getLevel());
+            out.writeLong(game.getSeed());
+            writeVarint(out, game.getTickRate());
+            writeVarint(out, game.getFrameWidth());
+            writeVarint(out, game.getFrameHeight());
+
+            // The recorded input
+            writeVarint(out, count);
+            records.writeTo(out);
+
+            // Trailer, how the game ended
+            writeVarint(out, lastTick);
+            int points = game.getPoints();
+            writeVarint(out, points << 1 ^ points >> 31); // Zigzag, since points can be negative
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Write a non-negative number using as few bytes as needed, 7 bits per byte. The highest
+     * bit of a byte tells whether more bytes follow.
+     *
+     * @param out Where to write to
+     * @param value The number
+     */
+    private static void writeVarint(OutputStream out, int value) {
+        try {
+            while ((value & ~0x7F) != 0) {
+                out.write(value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
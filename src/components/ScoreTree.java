@@ -0,0 +1,250 @@
+package components;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The entries of a level in leaderboard order (from high to low score, earlier entries first on
+ * equal scores), in a tree which knows the size of every subtree. So the rank of a score and a
+ * page of entries take O(log n) steps, without sorting anything. The tree is a treap: every
+ * node also gets a random priority, and parents have a higher priority than their children,
+ * which keeps it balanced whatever the order the entries are added in. Not thread-safe.
+ *
+ * <p>Entries read from a snapshot come in order, so each goes after all others, like a new
+ * lowest score. Those are added along the right edge of the tree, without splitting it; only
+ * the sizes of the nodes on that edge change, which are O(log n) nodes.
+ */
+public class ScoreTree {
+    private Node root; // Null when empty
+    private int random = 0x2545F491; // State of the xorshift generating priorities
+    private Node[] edge = new Node[32]; // Nodes from the root to the last entry, going right
+    private int edgeSize = 0; // Amount of nodes in edge, -1 when they're not known anymore
+
+    /**
+     * Add an entry, after the entries with the same score.
+     *
+     * @param entry The entry
+     */
+    public void add(LeaderboardEntry entry) {
+        random ^= random << 13;
+        random ^= random >>> 17;
+        random ^= random << 5;
+        Node node = new Node(entry, random);
+
+        if (edgeSize == 0 || edgeSize > 0
+                && edge[edgeSize - 1].entry.getScore() >= entry.getScore()) {
+            append(node);
+            return;
+        }
+        edgeSize = -1; // The edge would have to be found again, entries aren't in order anymore
+
+        // Split off the entries going after the new one, which are those with a lower score
+        Node[] parts = new Node[2];
+        split(root, entry.getScore(), parts);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * Get the amount of entries.
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Count the entries with at least a score.
+     *
+     * @param score The score
+     * @return The amount of entries with that score or higher
+     */
+    public int countAtLeast(int score) {
+        int count = 0;
+        Node node = root;
+        while (node != null) {
+            if (node.entry.getScore() >= score) {
+                count += size(node.left) + 1;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get entries in leaderboard order.
+     *
+     * @param offset Index of the first entry (0 is the best)
+     * @param limit How many entries at most
+     * @param page Gets the entries
+     */
+    public void page(int offset, int limit, List<LeaderboardEntry> page) {
+        collect(root, offset, offset + limit, page);
+    }
+
+    /**
+     * Go through all entries in leaderboard order.
+     *
+     * @param action Gets every entry
+     */
+    public void forEach(Consumer<LeaderboardEntry> action) {
+        forEach(root, action);
+    }
+
+    /**
+     * Add a node after all others. It goes below the last node on the right edge with a higher
+     * priority, and takes the nodes below that as its left subtree.
+     *
+     * @param node The node
+     */
+    private void append(Node node) {
+        Node left = null;
+        while (edgeSize > 0 && edge[edgeSize - 1].priority <= node.priority) {
+            left = edge[--edgeSize];
+        }
+        node.left = left;
+        node.update();
+        if (edgeSize == 0) {
+            root = node;
+        } else {
+            edge[edgeSize - 1].right = node;
+        }
+
+        // The nodes above it on the edge have it in their subtree now
+        for (int i = 0; i < edgeSize; i++) {
+            edge[i].size++;
+        }
+        if (edgeSize == edge.length) {
+            edge = Arrays.copyOf(edge, edgeSize * 2);
+        }
+        edge[edgeSize++] = node;
+    }
+
+    /**
+     * Split a tree into the entries going before an entry with a score which is added now, and
+     * those going after it.
+     *
+     * @param node The tree
+     * @param score The score
+     * @param parts Gets the entries before it (with that score or higher) and after it
+     */
+    private static void split(Node node, int score, Node[] parts) {
+        if (node == null) {
+            parts[0] = null;
+            parts[1] = null;
+        } else if (node.entry.getScore() >= score) {
+            split(node.right, score, parts);
+            node.right = parts[0];
+            parts[0] = node.update();
+        } else {
+            split(node.left, score, parts);
+            node.left = parts[1];
+            parts[1] = node.update();
+        }
+    }
+
+    /**
+     * Merge two trees, where all entries of the first go before those of the second.
+     *
+     * @param first The first tree
+     * @param second The second tree
+     * @return The merged tree
+     */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            return first.update();
+        }
+        second.left = merge(first, second.left);
+        return second.update();
+    }
+
+    /**
+     * Add the entries of a tree within a range of indexes to a list, skipping the subtrees
+     * outside of it.
+     *
+     * @param node The tree
+     * @param from Index of the first entry, relative to the tree
+     * @param to Index after the last entry, relative to the tree
+     * @param page Gets the entries
+     */
+    private static void collect(Node node, int from, int to, List<LeaderboardEntry> page) {
+        if (node == null || from >= to) {
+            return;
+        }
+        int index = size(node.left);
+        if (from < index) {
+            collect(node.left, from, to, page);
+        }
+        if (from <= index && index < to) {
+            page.add(node.entry);
+        }
+        if (to > index + 1) {
+            collect(node.right, from - index - 1, to - index - 1, page);
+        }
+    }
+
+    /**
+     * Go through the entries of a tree in leaderboard order.
+     *
+     * @param node The tree
+     * @param action Gets every entry
+     */
+    private static void forEach(Node node, Consumer<LeaderboardEntry> action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.entry);
+            node = node.right;
+        }
+    }
+
+    /**
+     * Get the amount of entries in a tree.
+     *
+     * @param node The tree
+     * @return The amount of entries, 0 for no tree
+     */
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * A node of the tree: an entry, with the entries going before it on the left and those
+     * going after it on the right.
+     */
+    private static class Node {
+        final LeaderboardEntry entry;
+        final int priority; // Random, higher than the priorities of the children
+        Node left; // Entries going before it
+        Node right; // Entries going after it
+        int size = 1; // Amount of entries in this subtree
+
+        /**
+         * Initialize Node.
+         *
+         * @param entry The entry
+         * @param priority Random priority
+         */
+        Node(LeaderboardEntry entry, int priority) {
+            this.entry = entry;
+            this.priority = priority;
+        }
+
+        /**
+         * Update the size after the children changed.
+         *
+         * @return This node
+         */
+        Node update() {
+            size = 1 + size(left) + size(right);
+            return this;
+        }
+    }
+}
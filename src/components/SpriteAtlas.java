@@ -0,0 +1,235 @@
+package components;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sprites packed into pages of raw pixels (premultiplied ARGB) in a single file, made by
+ * AssetBaker. Reading it is a memory-mapped copy instead of decoding PNGs, and the sprites are
+ * stored at the size they're drawn at instead of their (much larger) original size.
+ *
+ * <p>The file starts with an index (big endian): magic, version, the pages (width, height and
+ * offset of the pixels) and the sprites (name, scale, page, x, y, width and height). The pixels
+ * of every page follow, as little endian ints.
+ */
+public class SpriteAtlas {
+    public static final String FILE = "sprites.atlas"; // Name of the atlas in the resources
+    private static final int MAGIC = 0x43524154; // "CRAT"
+    private static final int VERSION = 1;
+    private static final int PAGE_SIZE = 2048; // Width and (maximal) height of a page
+    private static final int PADDING = 1; // Empty pixels between sprites
+    private static final int ALIGNMENT = 64; // Pixels of the pages start at a multiple of this
+
+    private final Map<String, BufferedImage> sprites = new HashMap<>(); // By file path + name
+
+    /**
+     * Initialize SpriteAtlas, copying the sprites of a scale out of the mapped file.
+     *
+     * @param buffer The mapped atlas file
+     * @param scale Which variant of the sprites to use (1 or 2 times the drawn size)
+     */
+    private SpriteAtlas(ByteBuffer buffer, int scale) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a sprite atlas of this version");
+        }
+
+        int pageCount = buffer.getInt();
+        int[] pageWidths = new int[pageCount];
+        long[] pageOffsets = new long[pageCount];
+        for (int i = 0; i < pageCount; i++) {
+            pageWidths[i] = buffer.getInt();
+            buffer.getInt(); // Height
+            pageOffsets[i] = buffer.getLong();
+        }
+
+        IntBuffer pixels = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN).position(0)
+            .asIntBuffer();
+        int spriteCount = buffer.getInt();
+        for (int i = 0; i < spriteCount; i++) {
+            byte[] name = new byte[buffer.getShort()];
+            buffer.get(name);
+            int spriteScale = buffer.getInt();
+            int page = buffer.getInt();
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            if (spriteScale != scale) {
+                continue; // The other variant isn't touched, so it's never read from disk
+            }
+
+            // Copy the rows of the sprite into an image of its own, which Java2D can draw fast
+            BufferedImage sprite = new BufferedImage(width, height,
+                BufferedImage.TYPE_INT_ARGB_PRE);
+            int[] row = new int[width];
+            for (int j = 0; j < height; j++) {
+                int position = (int) (pageOffsets[page] / 4) + (y + j) * pageWidths[page] + x;
+                pixels.get(position, row);
+                sprite.getRaster().setDataElements(0, j, width, 1, row);
+            }
+            sprites.put(new String(name, StandardCharsets.UTF_8), sprite);
+        }
+    }
+
+    /**
+     * Load the atlas from the resources.
+     *
+     * @param scale Which variant of the sprites to use (1 or 2 times the drawn size)
+     * @return The atlas, or null when there's none (not baked, or the game runs from a jar)
+     */
+    public static SpriteAtlas load(int scale) {
+        URL resource = SpriteAtlas.class.getClassLoader().getResource(FILE);
+        if (resource == null || !resource.getProtocol().equals("file")) {
+            return null;
+        }
+
+        try (FileChannel channel = FileChannel.open(Path.of(resource.toURI()),
+                StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                channel.size());
+            return new SpriteAtlas(buffer, scale);
+        } catch (IOException | URISyntaxException | RuntimeException e) {
+            System.out.println("WARNING, CAN'T READ " + FILE + ", LOADING PNGS: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Get a sprite.
+     *
+     * @param name File path + name of the original image
+     * @return The sprite, or null when it isn't in the atlas
+     */
+    public BufferedImage get(String name) {
+        return sprites.get(name);
+    }
+
+    /**
+     * Pack sprites into pages and write them to an atlas file.
+     *
+     * @param file The file to write
+     * @param names File path + name of the original image of every sprite
+     * @param scales The scale of every sprite
+     * @param images Every sprite, premultiplied ARGB at the size it should be stored at
+     * @throws IOException When the file can't be written
+     */
+    public static void write(File file, List<String> names, List<Integer> scales,
+            List<BufferedImage> images) throws IOException {
+        // Shelf packing: place the sprites from tall to short in rows, starting a new row when
+        // the current one is full and a new page when the page is full
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < images.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing((Integer i) -> -images.get(i).getHeight()));
+
+        int[] pages = new int[images.size()];
+        int[] xs = new int[images.size()];
+        int[] ys = new int[images.size()];
+        List<Integer> pageHeights = new ArrayList<>();
+        int x = 0;
+        int y = 0;
+        int rowHeight = 0;
+        pageHeights.add(0);
+        for (int i : order) {
+            BufferedImage image = images.get(i);
+            if (x + image.getWidth() > PAGE_SIZE) { // Next row
+                x = 0;
+                y += rowHeight + PADDING;
+                rowHeight = 0;
+            }
+            if (y + image.getHeight() > PAGE_SIZE) { // Next page
+                x = 0;
+                y = 0;
+                rowHeight = 0;
+                pageHeights.add(0);
+            }
+            int page = pageHeights.size() - 1;
+            pages[i] = page;
+            xs[i] = x;
+            ys[i] = y;
+            x += image.getWidth() + PADDING;
+            rowHeight = Math.max(rowHeight, image.getHeight());
+            pageHeights.set(page, Math.max(pageHeights.get(page), y + image.getHeight()));
+        }
+
+        // Draw the pages
+        List<BufferedImage> pageImages = new ArrayList<>();
+        for (int height : pageHeights) {
+            pageImages.add(new BufferedImage(PAGE_SIZE, height, BufferedImage.TYPE_INT_ARGB_PRE));
+        }
+        for (int i = 0; i < images.size(); i++) {
+            Graphics2D graphics = pageImages.get(pages[i]).createGraphics();
+            graphics.setComposite(AlphaComposite.Src);
+            graphics.drawImage(images.get(i), xs[i], ys[i], null);
+            graphics.dispose();
+        }
+
+        // The index, its length is needed to know where the pixels start
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(bytes);
+        index.writeInt(MAGIC);
+        index.writeInt(VERSION);
+        index.writeInt(pageImages.size());
+        long offset = 12 + pageImages.size() * 16L + 4;
+        for (int i = 0; i < names.size(); i++) {
+            offset += 2 + names.get(i).getBytes(StandardCharsets.UTF_8).length + 24;
+        }
+        offset = (offset + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT; // Pixels start aligned
+        long pixelsStart = offset;
+        for (BufferedImage page : pageImages) {
+            index.writeInt(page.getWidth());
+            index.writeInt(page.getHeight());
+            index.writeLong(offset);
+            offset += (long) page.getWidth() * page.getHeight() * 4;
+        }
+        index.writeInt(names.size());
+        for (int i = 0; i < names.size(); i++) {
+            byte[] name = names.get(i).getBytes(StandardCharsets.UTF_8);
+            index.writeShort(name.length);
+            index.write(name);
+            index.writeInt(scales.get(i));
+            index.writeInt(pages[i]);
+            index.writeInt(xs[i]);
+            index.writeInt(ys[i]);
+            index.writeInt(images.get(i).getWidth());
+            index.writeInt(images.get(i).getHeight());
+        }
+
+        try (RandomAccessFile output = new RandomAccessFile(file, "rw")) {
+            output.setLength(0);
+            FileChannel channel = output.getChannel();
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+            channel.write(ByteBuffer.allocate((int) (pixelsStart - bytes.size()))); // Padding
+            for (BufferedImage page : pageImages) {
+                int[] pixels = ((DataBufferInt) page.getRaster().getDataBuffer()).getData();
+                ByteBuffer buffer = ByteBuffer.allocate(pixels.length * 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                buffer.asIntBuffer().put(pixels);
+                channel.write(buffer);
+            }
+        }
+    }
+}
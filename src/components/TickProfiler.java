@@ -0,0 +1,257 @@
+package components;
+
+import java.util.Arrays;
+
+/**
+ * Measures how long every phase of a frame takes (generating, hit detection, updating and
+ * drawing), shown by GameEngine in a debug overlay. Durations are counted in histograms, which
+ * are allocated up front, so profiling never creates objects. While it's disabled it doesn't
+ * even read the clock.
+ *
+ * <p>The histograms cover the last full second. Buckets grow exponentially with 4 buckets per
+ * power of two, so percentiles are off by at most 25%, while the maximum is exact.
+ */
+public class TickProfiler {
+    // The phases of a frame, in the order GameEngine runs them
+    public static final String[] PHASES = {
+        "generateRain", "generateFlowerpots", "generateLanterns", "generatePeople",
+        "generateEffects", "detectRainHit", "detectEffectHit", "updateCamera", "updateEffects",
+        "updateLanterns", "updateFlowerpots", "updatePeople", "updateRaindrops", "updateParticles",
+        "updateCloud", "updateHitIndexes",
+        "drawBackground", "drawEffects", "drawLanterns", "drawFlowerpots", "drawPeople",
+        "drawRaindrops", "drawSplashes", "drawLightning", "drawCoins", "drawCloud", "drawScore",
+        "drawBuffs",
+        "update", "render", "frame",
+    };
+    public static final int GENERATE_RAIN = 0;
+    public static final int GENERATE_FLOWERPOTS = 1;
+    public static final int GENERATE_LANTERNS = 2;
+    public static final int GENERATE_PEOPLE = 3;
+    public static final int GENERATE_EFFECTS = 4;
+    public static final int DETECT_RAIN_HIT = 5;
+    public static final int DETECT_EFFECT_HIT = 6;
+    public static final int UPDATE_CAMERA = 7;
+    public static final int UPDATE_EFFECTS = 8;
+    public static final int UPDATE_LANTERNS = 9;
+    public static final int UPDATE_FLOWERPOTS = 10;
+    public static final int UPDATE_PEOPLE = 11;
+    public static final int UPDATE_RAINDROPS = 12;
+    public static final int UPDATE_PARTICLES = 13;
+    public static final int UPDATE_CLOUD = 14;
+    public static final int UPDATE_HIT_INDEXES = 15;
+    public static final int DRAW_BACKGROUND = 16;
+    public static final int DRAW_EFFECTS = 17;
+    public static final int DRAW_LANTERNS = 18;
+    public static final int DRAW_FLOWERPOTS = 19;
+    public static final int DRAW_PEOPLE = 20;
+    public static final int DRAW_RAINDROPS = 21;
+    public static final int DRAW_SPLASHES = 22;
+    public static final int DRAW_LIGHTNING = 23;
+    public static final int DRAW_COINS = 24;
+    public static final int DRAW_CLOUD = 25;
+    public static final int DRAW_SCORE = 26;
+    public static final int DRAW_BUFFS = 27;
+    public static final int UPDATE = 28; // A single update
+    public static final int RENDER = 29; // Drawing a frame
+    public static final int FRAME = 30; // Time between the start of two frames
+
+    private static final int BUCKETS = 160; // Enough for durations up to a minute
+    private static final long WINDOW = 1_000_000_000L; // Length of a histogram window (ns)
+
+    private boolean enabled = false; // Whether phases are measured
+    private long[][] current = new long[PHASES.length][BUCKETS]; // Histograms being filled
+    private long[][] previous = new long[PHASES.length][BUCKETS]; // Histograms of last window
+    private final long[] currentMax = new long[PHASES.length]; // Longest duration per phase
+    private final long[] previousMax = new long[PHASES.length];
+    private long windowStart = 0; // When the current window started
+    private int frames = 0; // Amount of frames in the current window
+    private int framesPerSecond = 0; // Amount of frames in the previous window
+
+    private long lastTime = 0; // When the previous phase ended
+    private long frameStart = 0; // When the current frame started
+    private long sectionStart = 0; // When the current update or render started
+
+    /**
+     * Check whether phases are measured.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turn measuring on or off, e.g. when the overlay is toggled.
+     */
+    public void toggle() {
+        enabled = !enabled;
+        frameStart = 0; // Don't count the time while disabled as a frame
+        for (int i = 0; i < PHASES.length; i++) {
+            Arrays.fill(current[i], 0);
+            Arrays.fill(previous[i], 0);
+        }
+        Arrays.fill(currentMax, 0);
+        Arrays.fill(previousMax, 0);
+        windowStart = System.nanoTime();
+        frames = 0;
+        framesPerSecond = 0;
+    }
+
+    /**
+     * Mark the start of a frame.
+     */
+    public void startFrame() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        if (frameStart != 0) {
+            record(FRAME, now - frameStart);
+        }
+        frameStart = now;
+        lastTime = now;
+        frames++;
+
+        // Start a new window every second, keeping the last one to show
+        if (now - windowStart >= WINDOW) {
+            long[][] histograms = previous;
+            previous = current;
+            current = histograms;
+            for (long[] histogram : current) {
+                Arrays.fill(histogram, 0);
+            }
+            System.arraycopy(currentMax, 0, previousMax, 0, PHASES.length);
+            Arrays.fill(currentMax, 0);
+            framesPerSecond = frames;
+            frames = 0;
+            windowStart = now;
+        }
+    }
+
+    /**
+     * Mark the start of an update.
+     */
+    public void startUpdate() {
+        if (enabled) {
+            lastTime = System.nanoTime();
+            sectionStart = lastTime;
+        }
+    }
+
+    /**
+     * Mark the end of an update.
+     */
+    public void endUpdate() {
+        if (enabled) {
+            record(UPDATE, System.nanoTime() - sectionStart);
+        }
+    }
+
+    /**
+     * Mark the start of drawing a frame.
+     */
+    public void startRender() {
+        if (enabled) {
+            lastTime = System.nanoTime();
+            sectionStart = lastTime;
+        }
+    }
+
+    /**
+     * Mark the end of drawing a frame.
+     */
+    public void endRender() {
+        if (enabled) {
+            record(RENDER, System.nanoTime() - sectionStart);
+        }
+    }
+
+    /**
+     * Mark the end of a phase, which started when the previous phase ended.
+     * @param phase The phase
+     */
+    public void lap(int phase) {
+        if (enabled) {
+            long now = System.nanoTime();
+            record(phase, now - lastTime);
+            lastTime = now;
+        }
+    }
+
+    /**
+     * Get the amount of frames drawn in the last second.
+     */
+    public int getFramesPerSecond() {
+        return framesPerSecond;
+    }
+
+    /**
+     * Get a percentile of the durations of a phase in the last second.
+     * @param phase The phase
+     * @param percentile The percentile (0 -> 1)
+     * @return The duration in nanoseconds
+     */
+    public long getPercentile(int phase, double percentile) {
+        long[] histogram = previous[phase];
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen > 0 && seen >= percentile * total) {
+                return Math.min(bucketEnd(i), previousMax[phase]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Get the longest duration of a phase in the last second.
+     * @param phase The phase
+     * @return The duration in nanoseconds
+     */
+    public long getMax(int phase) {
+        return previousMax[phase];
+    }
+
+    /**
+     * Count a duration in the histogram of a phase.
+     * @param phase The phase
+     * @param nanos The duration in nanoseconds
+     */
+    private void record(int phase, long nanos) {
+        current[phase][bucket(nanos)]++;
+        currentMax[phase] = Math.max(currentMax[phase], nanos);
+    }
+
+    /**
+     * Get the histogram bucket of a duration: 4 buckets per power of two.
+     * @param nanos The duration in nanoseconds
+     * @return Index of the bucket
+     */
+    private static int bucket(long nanos) {
+        if (nanos < 4) {
+            return (int) Math.max(nanos, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - 2) & 3); // 2 bits after the highest one
+        return Math.min(BUCKETS - 1, exponent * 4 + mantissa - 4);
+    }
+
+    /**
+     * Get the longest duration counted in a bucket.
+     * @param bucket Index of the bucket
+     * @return The duration in nanoseconds
+     */
+    private static long bucketEnd(int bucket) {
+        int next = bucket + 1;
+        if (next < 4) {
+            return bucket;
+        }
+        int exponent = (next + 4) / 4;
+        int mantissa = (next + 4) % 4;
+        return ((4L + mantissa) << (exponent - 2)) - 1;
+    }
+}
@@ -0,0 +1,31 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of loading an image of the game resources.
+ */
+@Name("cloudrush.ImageLoad")
+@Label("Image Load")
+@Category({"CloudRush", "Disk"})
+@Description("Loading and decoding an image")
+@StackTrace(false)
+public class ImageLoadEvent extends Event {
+    // Whether these events are recorded (see TickEvent)
+    public static final EventType TYPE = EventType.getEventType(ImageLoadEvent.class);
+
+    @Label("Image")
+    public String name;
+
+    @Label("Width")
+    public int width;
+
+    @Label("Height")
+    public int height;
+}
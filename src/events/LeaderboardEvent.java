@@ -0,0 +1,37 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of reading or writing the leaderboard files.
+ */
+@Name("cloudrush.Leaderboard")
+@Label("Leaderboard")
+@Category({"CloudRush", "Disk"})
+@Description("Reading or writing the leaderboard files")
+public class LeaderboardEvent extends Event {
+    // Whether these events are recorded (see TickEvent)
+    public static final EventType TYPE = EventType.getEventType(LeaderboardEvent.class);
+
+    @Label("Operation")
+    @Description("\"load\" (snapshot and log), \"add\" or \"compact\"")
+    public String operation;
+
+    @Label("Level")
+    public String level;
+
+    @Label("Bytes")
+    @Description("Bytes read or written, for \"add\" by the whole group commit")
+    @DataAmount
+    public long bytes;
+
+    @Label("Entries")
+    @Description("Entries read or written, for \"add\" the size of its group commit")
+    public int entries;
+}
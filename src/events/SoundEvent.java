@@ -0,0 +1,35 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of a sound effect starting to play in the AudioMixer.
+ */
+@Name("cloudrush.Sound")
+@Label("Sound")
+@Category({"CloudRush", "Audio"})
+@Description("A sound effect starting to play")
+@StackTrace(false)
+public class SoundEvent extends Event {
+    // Whether these events are recorded (see TickEvent)
+    public static final EventType TYPE = EventType.getEventType(SoundEvent.class);
+
+    @Label("Sound")
+    public String name;
+
+    @Label("Latency")
+    @Description("Time from the game playing the sound until it's mixed")
+    @Timespan(Timespan.NANOSECONDS)
+    public long latency;
+
+    @Label("Stolen")
+    @Description("Whether another sound was stopped, since all voices were in use")
+    public boolean stolen;
+}
@@ -0,0 +1,46 @@
+package events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of a single frame of the game (GameEngine.tick): the updates it ran,
+ * drawing it and how many objects there were.
+ */
+@Name("cloudrush.Tick")
+@Label("Tick")
+@Category({"CloudRush", "Game"})
+@Description("A frame of the game, with the updates it ran and drawing it")
+@StackTrace(false)
+public class TickEvent extends Event {
+    // Checked before creating an event, so nothing is allocated while recording is off
+    public static final EventType TYPE = EventType.getEventType(TickEvent.class);
+
+    @Label("Updates")
+    @Description("Amount of fixed-length updates run in this frame")
+    public int updates;
+
+    @Label("Raindrops")
+    public int raindrops;
+
+    @Label("People")
+    public int people;
+
+    @Label("Flowerpots")
+    public int flowerpots;
+
+    @Label("Lanterns")
+    public int lanterns;
+
+    @Label("Effects")
+    public int effects;
+
+    @Label("Particles")
+    @Description("Splashes, lightning and coins")
+    public int particles;
+}
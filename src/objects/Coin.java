@@ -1,11 +0,0 @@
-package objects;
-
-/**
- * Coin object.
- */
-public class Coin {
-    public double x; // X position of coin
-    public double y; // Y position of coin
-    public int state; // State of sprite animation
-    public boolean positive; // If coin is positive or negative (added or remove points)
-}
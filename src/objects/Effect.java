@@ -27,6 +27,7 @@ public class Effect {
             case CLOUD_SIZE -> {
                 context.cloudSize *= positive ? 1.5 : 0.5;
                 context.cloudHeight = context.cloudSize * (420d / 650d);
+                context.invalidateScaledSprites();
             }
             case RAIN_INTENSITY -> context.rainIntensity /= positive ? 3 : 0.5;
             case MOVEMENT_SPEED -> {
@@ -46,6 +47,7 @@ public class Effect {
             case FLOWER_SIZE -> {
                 context.flowerWidth *= (positive ? 2 : 0.5);
                 context.flowerHeight = context.flowerWidth * (1417d / 2700d);
+                context.invalidateScaledSprites();
             }
             case PEOPLE_SPEED -> context.peopleSpeedMultiplier *= positive ? 0.5 : 2;
             case EFFECTS_COUNT -> context.effectsGenerationFrequency *= (positive ? 2 : 0.5);
@@ -62,6 +64,7 @@ public class Effect {
             case CLOUD_SIZE -> {
                 context.cloudSize /= positive ? 1.5 : 0.5;
                 context.cloudHeight = context.cloudSize * (420d / 650d);
+                context.invalidateScaledSprites();
             }
             case RAIN_INTENSITY -> context.rainIntensity *= positive ? 3 : 0.5;
             case MOVEMENT_SPEED -> {
@@ -81,6 +84,7 @@ public class Effect {
             case FLOWER_SIZE -> {
                 context.flowerWidth /= (positive ? 2 : 0.5);
                 context.flowerHeight = context.flowerWidth * (1417d / 2700d);
+                context.invalidateScaledSprites();
             }
             case PEOPLE_SPEED -> context.peopleSpeedMultiplier /= positive ? 0.5 : 2;
             case EFFECTS_COUNT -> context.effectsGenerationFrequency /= (positive ? 2 : 0.5);
@@ -1,12 +0,0 @@
-package objects;
-
-
-/**
- * Lightning object.
- */
-public class Lightning {
-    public double x; // X position of coin
-    public double y; // Y position of coin
-    public int state; // State of sprite animation
-    public double height; // Height, to check if lightning hit person, lantern or ground
-}
@@ -0,0 +1,15 @@
+package objects;
+
+/**
+ * Particle object, a short-lived visual effect like a coin, raindrop splash or lightning.
+ * Particles are recycled by a ParticlePool, so they are never created during a game.
+ */
+public class Particle {
+    public double x; // X position of particle
+    public double y; // Y position of particle
+    public double lastY; // Y position at the previous tick, used to interpolate rendering
+    public double speedY; // How far the particle moves down (or up when negative) per tick
+    public double height; // Height of the particle, used by lightning
+    public int state; // State of sprite animation, counts the ticks since the particle appeared
+    public boolean positive; // If coin is positive or negative (added or remove points)
+}
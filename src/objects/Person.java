@@ -5,6 +5,7 @@ package objects;
  */
 public class Person {
     public double x; // Position of the person
+    public double lastX; // Position at the previous tick, used to interpolate rendering
     public double speed; // Negative => going left, positive => going right
     public int type; // Type of sprite (man/woman)
     public int state; // Walking animation